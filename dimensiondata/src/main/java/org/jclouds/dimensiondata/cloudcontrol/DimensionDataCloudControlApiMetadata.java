@@ -28,6 +28,8 @@ import org.jclouds.rest.internal.BaseHttpApiMetadata;
 import java.net.URI;
 import java.util.Properties;
 
+import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties.CLEANUP_PARALLELISM;
+import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties.NAT_RULE_CACHE_TTL;
 import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties.OPERATION_TIMEOUT;
 import static org.jclouds.reflect.Reflection2.typeToken;
 
@@ -51,6 +53,8 @@ public class DimensionDataCloudControlApiMetadata extends BaseHttpApiMetadata<Di
       protected Builder() {
          final Properties defaultProperties = DimensionDataCloudControlApiMetadata.defaultProperties();
          defaultProperties.put(OPERATION_TIMEOUT, 30 * 60 * 1000);
+         defaultProperties.put(NAT_RULE_CACHE_TTL, 0);
+         defaultProperties.put(CLEANUP_PARALLELISM, 10);
          id("dimensiondata-cloudcontrol").name("DimensionData CloudControl API").identityName("user name")
                .credentialName("user password")
                .documentation(URI.create("http://www.dimensiondata.com/en-US/Solutions/Cloud"))
@@ -17,24 +17,51 @@
 package org.jclouds.dimensiondata.cloudcontrol.compute.function;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.jclouds.dimensiondata.cloudcontrol.DimensionDataCloudControlApi;
 import org.jclouds.dimensiondata.cloudcontrol.domain.NatRule;
 import org.jclouds.dimensiondata.cloudcontrol.domain.Server;
 import org.jclouds.dimensiondata.cloudcontrol.domain.internal.ServerWithExternalIp;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties.NAT_RULE_CACHE_TTL;
+
+/**
+ * Resolves the external IP of servers from the NAT rules of their network domain. The NAT rules of a network domain
+ * are indexed by internal IP, the index can be kept for {@link org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties#NAT_RULE_CACHE_TTL}
+ * milliseconds. It is rebuilt on every lookup by default, so NAT rules created in the meantime are seen. A listing
+ * converted with {@link #apply(Iterable)} builds the index of each network domain once and never uses the cache.
+ */
 @Singleton
 public class ServerToServerWithExternalIp implements Function<Server, ServerWithExternalIp> {
 
    private final DimensionDataCloudControlApi api;
+   private final LoadingCache<String, Map<String, String>> natIndexes;
 
    @Inject
-   ServerToServerWithExternalIp(DimensionDataCloudControlApi api) {
+   ServerToServerWithExternalIp(DimensionDataCloudControlApi api, @Named(NAT_RULE_CACHE_TTL) long natRuleCacheTtl) {
       this.api = api;
+      this.natIndexes = natRuleCacheTtl > 0 ?
+            CacheBuilder.newBuilder().expireAfterWrite(natRuleCacheTtl, TimeUnit.MILLISECONDS)
+                  .build(new CacheLoader<String, Map<String, String>>() {
+                     @Override
+                     public Map<String, String> load(String networkDomainId) {
+                        return loadNatIndex(networkDomainId);
+                     }
+                  }) :
+            null;
    }
 
    @Override
@@ -42,19 +69,65 @@ public class ServerToServerWithExternalIp implements Function<Server, ServerWith
       if (server == null) {
          return null;
       }
-      ServerWithExternalIp.Builder builder = ServerWithExternalIp.builder().server(server);
+      return apply(server, null);
+   }
 
-        if (server.networkInfo() != null) {
-            Optional<NatRule> natRuleOptional = api.getNetworkApi().listNatRules(server.networkInfo().networkDomainId())
-                  .concat().firstMatch(new Predicate<NatRule>() {
-                      @Override public boolean apply(NatRule input) {
-                          return input.internalIp().equalsIgnoreCase(server.networkInfo().primaryNic().privateIpv4());
-                      }
-                  });
-            if (natRuleOptional.isPresent()) {
-                builder.externalIp(natRuleOptional.get().externalIp());
+   /**
+    * Converts a listing of servers, the NAT rules of each network domain are listed at most once.
+    */
+   public List<ServerWithExternalIp> apply(Iterable<Server> servers) {
+      Map<String, Map<String, String>> natIndexes = Maps.newHashMap();
+      ImmutableList.Builder<ServerWithExternalIp> result = ImmutableList.builder();
+      for (Server server : servers) {
+         if (server != null) {
+            result.add(apply(server, natIndexes));
+         }
+      }
+      return result.build();
+   }
+
+   /**
+    * @param listingIndexes the NAT indexes built for the current listing, or null to convert a single server
+    */
+   private ServerWithExternalIp apply(Server server, Map<String, Map<String, String>> listingIndexes) {
+      ServerWithExternalIp.Builder builder = ServerWithExternalIp.builder().server(server);
+      if (server.networkInfo() != null) {
+         String privateIp = server.networkInfo().primaryNic().privateIpv4();
+         if (privateIp != null) {
+            String networkDomainId = server.networkInfo().networkDomainId();
+            Map<String, String> natIndex;
+            if (listingIndexes == null) {
+               natIndex = natIndex(networkDomainId);
+            } else {
+               natIndex = listingIndexes.get(networkDomainId);
+               if (natIndex == null) {
+                  natIndex = loadNatIndex(networkDomainId);
+                  listingIndexes.put(networkDomainId, natIndex);
+               }
             }
-        }
-        return builder.build();
-    }
+            String externalIp = natIndex.get(privateIp.toLowerCase(Locale.ROOT));
+            if (externalIp != null) {
+               builder.externalIp(externalIp);
+            }
+         }
+      }
+      return builder.build();
+   }
+
+   private Map<String, String> natIndex(String networkDomainId) {
+      return natIndexes != null ? natIndexes.getUnchecked(networkDomainId) : loadNatIndex(networkDomainId);
+   }
+
+   private Map<String, String> loadNatIndex(String networkDomainId) {
+      Map<String, String> natIndex = Maps.newHashMap();
+      for (NatRule natRule : api.getNetworkApi().listNatRules(networkDomainId).concat()) {
+         String internalIp = natRule.internalIp();
+         String externalIp = natRule.externalIp();
+         // The first rule of an internal IP wins
+         if (internalIp != null && externalIp != null && !natIndex.containsKey(internalIp.toLowerCase(Locale.ROOT))) {
+            natIndex.put(internalIp.toLowerCase(Locale.ROOT), externalIp);
+         }
+      }
+      return ImmutableMap.copyOf(natIndex);
+   }
 }
@@ -17,8 +17,19 @@
 package org.jclouds.dimensiondata.cloudcontrol.compute.functions;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import org.jclouds.Constants;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
 import org.jclouds.dimensiondata.cloudcontrol.DimensionDataCloudControlApi;
@@ -35,12 +46,26 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.lang.String.format;
 import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataCloudControlComputeServiceContextModule.SERVER_DELETED_PREDICATE;
 import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataCloudControlComputeServiceContextModule.SERVER_STOPPED_PREDICATE;
+import static org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties.CLEANUP_PARALLELISM;
 import static org.jclouds.dimensiondata.cloudcontrol.utils.DimensionDataCloudControlResponseUtils.generateFirewallRuleName;
 
+/**
+ * Deletes a server along with its NAT rules, public IP blocks and firewall rules. A group of servers can be deleted
+ * with {@link #apply(Iterable)}, which lists the NAT rules, public IP blocks and firewall rules of each network
+ * domain once for the whole group and deletes up to
+ * {@link org.jclouds.dimensiondata.cloudcontrol.config.DimensionDataProperties#CLEANUP_PARALLELISM} servers
+ * concurrently.
+ */
 @Singleton
 public class CleanupServer implements Function<String, Boolean> {
 
@@ -52,19 +77,73 @@ public class CleanupServer implements Function<String, Boolean> {
    private final Timeouts timeouts;
    private Predicate<String> serverStoppedPredicate;
    private Predicate<String> serverDeletedPredicate;
+   private final ListeningExecutorService userExecutor;
+   private final int cleanupParallelism;
 
    @Inject
    CleanupServer(final DimensionDataCloudControlApi api, final Timeouts timeouts,
          @Named(SERVER_STOPPED_PREDICATE) final Predicate<String> serverStoppedPredicate,
-         @Named(SERVER_DELETED_PREDICATE) final Predicate<String> serverDeletedPredicate) {
+         @Named(SERVER_DELETED_PREDICATE) final Predicate<String> serverDeletedPredicate,
+         @Named(Constants.PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor,
+         @Named(CLEANUP_PARALLELISM) final int cleanupParallelism) {
+      checkArgument(cleanupParallelism > 0, "%s must be positive", CLEANUP_PARALLELISM);
       this.api = api;
       this.timeouts = timeouts;
       this.serverStoppedPredicate = serverStoppedPredicate;
       this.serverDeletedPredicate = serverDeletedPredicate;
+      this.userExecutor = userExecutor;
+      this.cleanupParallelism = cleanupParallelism;
    }
 
    @Override
    public Boolean apply(final String serverId) {
+      return cleanup(serverId, Maps.<String, NetworkDomainResources>newConcurrentMap());
+   }
+
+   /**
+    * Deletes a group of servers concurrently, sharing the listings of their network domains. Up to
+    * {@code cleanupParallelism} workers take the servers from a shared queue on the user executor, so a worker which
+    * finished its server takes the next one and the caller never waits for a thread of that executor.
+    *
+    * @return a future holding whether each server was deleted, servers which failed to be deleted are mapped to false
+    * and the failure is logged
+    */
+   public ListenableFuture<Map<String, Boolean>> apply(final Iterable<String> serverIds) {
+      final ConcurrentMap<String, NetworkDomainResources> networkDomains = Maps.newConcurrentMap();
+      final List<String> ids = ImmutableSet.copyOf(serverIds).asList();
+      final Queue<String> pending = new ConcurrentLinkedQueue<String>(ids);
+      final ConcurrentMap<String, Boolean> deleted = Maps.newConcurrentMap();
+      int workerCount = Math.min(cleanupParallelism, ids.size());
+      List<ListenableFuture<?>> workers = Lists.newArrayListWithCapacity(workerCount);
+      for (int worker = 0; worker < workerCount; worker++) {
+         workers.add(userExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+               String serverId;
+               while ((serverId = pending.poll()) != null) {
+                  try {
+                     deleted.put(serverId, cleanup(serverId, networkDomains));
+                  } catch (RuntimeException e) {
+                     logger.warn(e, format("Failed to delete Server(%s). Due to - (%s)", serverId, e.getMessage()));
+                     deleted.put(serverId, false);
+                  }
+               }
+            }
+         }));
+      }
+      return Futures.transform(Futures.allAsList(workers), new Function<List<Object>, Map<String, Boolean>>() {
+         @Override
+         public Map<String, Boolean> apply(List<Object> done) {
+            ImmutableMap.Builder<String, Boolean> result = ImmutableMap.builder();
+            for (String serverId : ids) {
+               result.put(serverId, Boolean.TRUE.equals(deleted.get(serverId)));
+            }
+            return result.build();
+         }
+      }, directExecutor());
+   }
+
+   private Boolean cleanup(final String serverId, final ConcurrentMap<String, NetworkDomainResources> networkDomains) {
       final ServerApi serverApi = api.getServerApi();
       Server server = serverApi.getServer(serverId);
 
@@ -83,41 +162,28 @@ public class CleanupServer implements Function<String, Boolean> {
       String networkDomainId = server.networkInfo().networkDomainId();
       final String internalIp = server.networkInfo().primaryNic().privateIpv4();
 
-      // delete nat rules associated to the server, if any
-      final NetworkApi networkApi = api.getNetworkApi();
-      List<NatRule> natRulesToBeDeleted = networkApi.listNatRules(networkDomainId).concat()
-            .filter(new Predicate<NatRule>() {
-               @Override
-               public boolean apply(NatRule natRule) {
-                  return natRule.internalIp().equals(internalIp);
-               }
-            }).toList();
+      NetworkDomainResources networkDomain = networkDomains.get(networkDomainId);
+      if (networkDomain == null) {
+         NetworkDomainResources created = new NetworkDomainResources(api.getNetworkApi(), networkDomainId);
+         networkDomain = networkDomains.putIfAbsent(networkDomainId, created);
+         if (networkDomain == null) {
+            networkDomain = created;
+         }
+      }
+      final NetworkApi networkApi = networkDomain.networkApi;
 
-      for (final NatRule natRule : natRulesToBeDeleted) {
+      // delete nat rules associated to the server, if any
+      for (final NatRule natRule : networkDomain.natRules.get().get(internalIp)) {
 
          attemptDeleteNatRule(serverId, networkApi, natRule);
 
-         Optional<PublicIpBlock> optionalPublicIpBlock = networkApi.listPublicIPv4AddressBlocks(networkDomainId)
-               .concat().firstMatch(new Predicate<PublicIpBlock>() {
-                  @Override
-                  public boolean apply(PublicIpBlock input) {
-                     return input.baseIp().equals(natRule.externalIp());
-                  }
-               });
-         if (optionalPublicIpBlock.isPresent()) {
-            attemptDeletePublicIpBlock(serverId, networkApi, optionalPublicIpBlock.get());
+         PublicIpBlock publicIpBlock = networkDomain.claimPublicIpBlock(natRule.externalIp());
+         if (publicIpBlock != null) {
+            attemptDeletePublicIpBlock(serverId, networkApi, publicIpBlock);
          }
       }
 
-      List<FirewallRule> firewallRulesToBeDeleted = networkApi.listFirewallRules(networkDomainId).concat()
-            .filter(new Predicate<FirewallRule>() {
-               @Override
-               public boolean apply(FirewallRule firewallRule) {
-                  return firewallRule.name().equals(generateFirewallRuleName(serverId));
-               }
-            }).toList();
-
-      for (FirewallRule firewallRule : firewallRulesToBeDeleted) {
+      for (FirewallRule firewallRule : networkDomain.firewallRules.get().get(generateFirewallRuleName(serverId))) {
          attemptDeleteFirewallRule(serverId, networkApi, firewallRule);
       }
 
@@ -195,4 +261,57 @@ public class CleanupServer implements Function<String, Boolean> {
    private void rollbackOperation(final String message) {
       throw new IllegalStateException(message);
    }
+
+   /**
+    * The NAT rules, public IP blocks and firewall rules of a network domain, each listed once when first needed.
+    */
+   private static class NetworkDomainResources {
+      private final NetworkApi networkApi;
+      private final Supplier<ListMultimap<String, NatRule>> natRules;
+      private final Supplier<ConcurrentMap<String, PublicIpBlock>> publicIpBlocks;
+      private final Supplier<ListMultimap<String, FirewallRule>> firewallRules;
+
+      private NetworkDomainResources(final NetworkApi networkApi, final String networkDomainId) {
+         this.networkApi = networkApi;
+         this.natRules = Suppliers.memoize(new Supplier<ListMultimap<String, NatRule>>() {
+            @Override
+            public ListMultimap<String, NatRule> get() {
+               ListMultimap<String, NatRule> natRules = ArrayListMultimap.create();
+               for (NatRule natRule : networkApi.listNatRules(networkDomainId).concat()) {
+                  natRules.put(natRule.internalIp(), natRule);
+               }
+               return natRules;
+            }
+         });
+         this.publicIpBlocks = Suppliers.memoize(new Supplier<ConcurrentMap<String, PublicIpBlock>>() {
+            @Override
+            public ConcurrentMap<String, PublicIpBlock> get() {
+               ConcurrentMap<String, PublicIpBlock> publicIpBlocks = Maps.newConcurrentMap();
+               for (PublicIpBlock publicIpBlock : networkApi.listPublicIPv4AddressBlocks(networkDomainId).concat()) {
+                  if (!publicIpBlocks.containsKey(publicIpBlock.baseIp())) {
+                     publicIpBlocks.put(publicIpBlock.baseIp(), publicIpBlock);
+                  }
+               }
+               return publicIpBlocks;
+            }
+         });
+         this.firewallRules = Suppliers.memoize(new Supplier<ListMultimap<String, FirewallRule>>() {
+            @Override
+            public ListMultimap<String, FirewallRule> get() {
+               ListMultimap<String, FirewallRule> firewallRules = ArrayListMultimap.create();
+               for (FirewallRule firewallRule : networkApi.listFirewallRules(networkDomainId).concat()) {
+                  firewallRules.put(firewallRule.name(), firewallRule);
+               }
+               return firewallRules;
+            }
+         });
+      }
+
+      /**
+       * @return the public IP block with the given base IP, at most once so servers sharing it don't delete it twice
+       */
+      private PublicIpBlock claimPublicIpBlock(String baseIp) {
+         return baseIp == null ? null : publicIpBlocks.get().remove(baseIp);
+      }
+   }
 }
@@ -22,5 +22,16 @@ package org.jclouds.dimensiondata.cloudcontrol.config;
 public class DimensionDataProperties {
 
    public static final String OPERATION_TIMEOUT = "jclouds.dimensiondata.cloudcontrol.operation.timeout";
+
+   /**
+    * Milliseconds the NAT rules of a network domain are cached for when resolving the external IP of servers. NAT
+    * rules created while they are cached are not seen, the default of 0 disables the cache.
+    */
+   public static final String NAT_RULE_CACHE_TTL = "jclouds.dimensiondata.cloudcontrol.nat-rule-cache.ttl";
+
+   /**
+    * Maximum number of servers deleted concurrently when a group of servers is cleaned up.
+    */
+   public static final String CLEANUP_PARALLELISM = "jclouds.dimensiondata.cloudcontrol.cleanup.parallelism";
 }
 
@@ -39,6 +39,7 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.easymock.EasyMock.expect;
 import static org.testng.Assert.assertEquals;
@@ -91,7 +92,7 @@ public class ServerToServerWithExternalIpTest {
 
       EasyMock.replay(dimensionDataCloudControlApi, networkApi, natRule, nic);
 
-      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi).apply(server);
+      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi, 0L).apply(server);
       assertNotNull(result);
       assertEquals(result.server(), server);
       assertEquals(result.externalIp(), externalIp);
@@ -100,7 +101,7 @@ public class ServerToServerWithExternalIpTest {
    @Test(dependsOnMethods = "testServerToServerWithExternalIpApplyNotNull")
    public void testServerToServerWithExternalIpApplyNull() {
       server = null;
-      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi).apply(server);
+      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi, 0L).apply(server);
       assertNull(result);
    }
 
@@ -110,7 +111,7 @@ public class ServerToServerWithExternalIpTest {
             .deployed(true).state(State.NORMAL).sourceImageId("imageId").started(false).createTime(new Date())
             .memoryGb(1024).guest(Guest.builder().osCustomization(false).operatingSystem(os).build()).build();
 
-      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi).apply(server);
+      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi, 0L).apply(server);
       assertNotNull(result);
       assertEquals(result.server(), server);
       assertNull(result.externalIp());
@@ -136,9 +137,66 @@ public class ServerToServerWithExternalIpTest {
 
       EasyMock.replay(dimensionDataCloudControlApi, networkApi, natRule, nic);
 
-      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi).apply(server);
+      ServerWithExternalIp result = new ServerToServerWithExternalIp(dimensionDataCloudControlApi, 0L).apply(server);
       assertNotNull(result);
       assertEquals(result.server(), server);
       assertNull(result.externalIp());
    }
+
+   @Test
+   public void testServerToServerWithExternalIpApplyBatchListsNatRulesOncePerNetworkDomain() {
+      DimensionDataCloudControlApi api = EasyMock.createMock(DimensionDataCloudControlApi.class);
+      NetworkApi networkApi = EasyMock.createMock(NetworkApi.class);
+
+      List<Server> servers = Lists.newArrayList();
+      for (int i = 1; i <= 3; i++) {
+         servers.add(server("server" + i, "NetworkDomain1", "192.168.1." + i));
+      }
+      servers.add(server("server4", "NetworkDomain2", "192.168.1.1"));
+
+      expect(api.getNetworkApi()).andReturn(networkApi).times(2);
+      expect(networkApi.listNatRules("NetworkDomain1")).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            Lists.newArrayList(natRule("192.168.1.1", "10.12.122.1", "NetworkDomain1"),
+                  natRule("192.168.1.3", "10.12.122.3", "NetworkDomain1"))))).once();
+      expect(networkApi.listNatRules("NetworkDomain2")).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            Lists.newArrayList(natRule("192.168.1.1", "10.12.122.4", "NetworkDomain2"))))).once();
+      EasyMock.replay(api, networkApi);
+
+      List<ServerWithExternalIp> result = new ServerToServerWithExternalIp(api, 0L).apply(servers);
+      assertEquals(result.size(), 4);
+      assertEquals(result.get(0).externalIp(), "10.12.122.1");
+      assertNull(result.get(1).externalIp());
+      assertEquals(result.get(2).externalIp(), "10.12.122.3");
+      assertEquals(result.get(3).externalIp(), "10.12.122.4");
+      EasyMock.verify(api, networkApi);
+   }
+
+   @Test
+   public void testServerToServerWithExternalIpApplyCachesNatRules() {
+      DimensionDataCloudControlApi api = EasyMock.createMock(DimensionDataCloudControlApi.class);
+      NetworkApi networkApi = EasyMock.createMock(NetworkApi.class);
+
+      expect(api.getNetworkApi()).andReturn(networkApi).once();
+      expect(networkApi.listNatRules("NetworkDomain1")).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            Lists.newArrayList(natRule("192.168.1.1", "10.12.122.1", "NetworkDomain1"))))).once();
+      EasyMock.replay(api, networkApi);
+
+      ServerToServerWithExternalIp function = new ServerToServerWithExternalIp(api, 60 * 1000L);
+      assertEquals(function.apply(server("server1", "NetworkDomain1", "192.168.1.1")).externalIp(), "10.12.122.1");
+      assertNull(function.apply(server("server2", "NetworkDomain1", "192.168.1.2")).externalIp());
+      EasyMock.verify(api, networkApi);
+   }
+
+   private Server server(String id, String networkDomainId, String privateIp) {
+      NIC primaryNic = NIC.builder().id(id + "-nic").privateIpv4(privateIp).vlanId("vlanId").build();
+      return Server.builder().id(id).name(id).datacenterId("NA1")
+            .networkInfo(NetworkInfo.create(networkDomainId, primaryNic, new ArrayList<NIC>())).cpu(cpu).deployed(true)
+            .state(State.NORMAL).sourceImageId("imageId").started(false).createTime(new Date()).memoryGb(1024)
+            .guest(Guest.builder().osCustomization(false).operatingSystem(os).build()).build();
+   }
+
+   private static NatRule natRule(String internalIp, String externalIp, String networkDomainId) {
+      return NatRule.builder().id(internalIp + "-rule").datacenterId("NA1").state(State.NORMAL).createTime(new Date())
+            .internalIp(internalIp).externalIp(externalIp).networkDomainId(networkDomainId).build();
+   }
 }
@@ -17,6 +17,7 @@
 package org.jclouds.dimensiondata.cloudcontrol.compute.functions;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.easymock.EasyMock;
 import org.jclouds.collect.IterableWithMarkers;
@@ -45,9 +46,11 @@ import org.testng.annotations.Test;
 
 import java.util.Date;
 
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertTrue;
 
@@ -126,15 +129,19 @@ public class CleanupServerTest {
 
    private void applyAndAssertDeleted() {
       replay(serverApi, networkApi, api);
+      cleanupServer = newCleanupServer();
+      assertTrue(cleanupServer.apply(serverId));
+   }
+
+   private CleanupServer newCleanupServer() {
       Predicate<String> serverStoppedPredicate = contextModule
             .provideServerStoppedPredicate(api, new ComputeServiceConstants.Timeouts(),
                   new ComputeServiceConstants.PollPeriod());
       Predicate<String> serverDeletedPredicate = contextModule
             .provideServerDeletedPredicate(api, new ComputeServiceConstants.Timeouts(),
                   new ComputeServiceConstants.PollPeriod());
-      cleanupServer = new CleanupServer(api, new ComputeServiceConstants.Timeouts(), serverStoppedPredicate,
-            serverDeletedPredicate);
-      assertTrue(cleanupServer.apply(serverId));
+      return new CleanupServer(api, new ComputeServiceConstants.Timeouts(), serverStoppedPredicate,
+            serverDeletedPredicate, newDirectExecutorService(), 2);
    }
 
    @Test(dependsOnMethods = "testApply_ServerAndNetworkingDeleted")
@@ -142,14 +149,7 @@ public class CleanupServerTest {
       final Server server = serverBuilder.state(State.FAILED_ADD).build();
       loadServerExpectations(server);
       replay(api, serverApi, networkApi);
-      Predicate<String> serverStoppedPredicate = contextModule
-            .provideServerStoppedPredicate(api, new ComputeServiceConstants.Timeouts(),
-                  new ComputeServiceConstants.PollPeriod());
-      Predicate<String> serverDeletedPredicate = contextModule
-            .provideServerDeletedPredicate(api, new ComputeServiceConstants.Timeouts(),
-                  new ComputeServiceConstants.PollPeriod());
-      cleanupServer = new CleanupServer(api, new ComputeServiceConstants.Timeouts(), serverStoppedPredicate,
-            serverDeletedPredicate);
+      cleanupServer = newCleanupServer();
       applyWithExpectedErrorMessage("Server(serverId) not deleted as it is in state(FailedAdd).");
    }
 
@@ -203,6 +203,58 @@ public class CleanupServerTest {
       applyAndAssertDeleted();
    }
 
+   @Test(dependsOnMethods = "testApply_FirewallRuleNotInNormalState")
+   public void testApply_GroupOfServersListsNetworkDomainOnce() throws Exception {
+      final String otherServerId = "otherServerId";
+      final String otherInternalIp = "172.0.0.2";
+      final Server server = serverBuilder.state(State.NORMAL).build();
+      final Server otherServer = serverBuilder.id(otherServerId).networkInfo(
+            NetworkInfo.builder().networkDomainId(jcloudsNetworkDomainId)
+                  .primaryNic(NIC.builder().vlanId("vlanId").privateIpv4(otherInternalIp).build())
+                  .additionalNic(Lists.<NIC>newArrayList()).build()).build();
+      loadServerExpectations(server);
+      expect(serverApi.getServer(otherServerId)).andReturn(otherServer);
+      networkApiExpectations();
+
+      final NatRule natRule = natRuleBuilder.state(State.NORMAL).build();
+      final NatRule otherNatRule = natRuleBuilder.id("otherNatRuleId").internalIp(otherInternalIp)
+            .externalIp("otherExternalIp").build();
+      expect(networkApi.listNatRules(jcloudsNetworkDomainId))
+            .andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(Lists.newArrayList(natRule, otherNatRule))));
+      networkApi.deleteNatRule(natRule.id());
+      networkApi.deleteNatRule(otherNatRule.id());
+
+      final PublicIpBlock publicIpBlock = publicIpBlockBuilder.state(State.NORMAL).build();
+      final PublicIpBlock otherPublicIpBlock = publicIpBlockBuilder.id("otherPublicIpBlockId")
+            .baseIp("otherExternalIp").build();
+      expect(networkApi.listPublicIPv4AddressBlocks(jcloudsNetworkDomainId)).andReturn(PagedIterables
+            .onlyPage(IterableWithMarkers.from(Lists.newArrayList(publicIpBlock, otherPublicIpBlock))));
+      networkApi.removePublicIpBlock(publicIpBlock.id());
+      networkApi.removePublicIpBlock(otherPublicIpBlock.id());
+
+      final FirewallRule firewallRule = firewallRuleBuilder.state(State.NORMAL)
+            .destination(FirewallRuleTarget.builder().build()).build();
+      final FirewallRule otherFirewallRule = firewallRuleBuilder.id("otherFirewallRuleId")
+            .name(DimensionDataCloudControlResponseUtils.generateFirewallRuleName(otherServerId)).build();
+      expect(networkApi.listFirewallRules(jcloudsNetworkDomainId)).andReturn(
+            PagedIterables.onlyPage(IterableWithMarkers.from(Lists.newArrayList(firewallRule, otherFirewallRule))));
+      networkApi.deleteFirewallRule(firewallRule.id());
+      networkApi.deleteFirewallRule(otherFirewallRule.id());
+
+      for (String id : Lists.newArrayList(serverId, otherServerId)) {
+         serverApi.powerOffServer(id);
+         expect(serverApi.getServer(id)).andReturn(serverBuilder.id(id).started(false).build());
+         serverApi.deleteServer(id);
+         expect(serverApi.getServer(id)).andReturn(null);
+      }
+
+      replay(serverApi, networkApi, api);
+      cleanupServer = newCleanupServer();
+      assertEquals(ImmutableMap.of(serverId, true, otherServerId, true),
+            cleanupServer.apply(Lists.newArrayList(serverId, otherServerId)).get());
+      verify(serverApi, networkApi, api);
+   }
+
    private void firewallRuleAndPortListExpectations() {
       final FirewallRule firewallRule = firewallRuleBuilder.state(State.NORMAL).destination(FirewallRuleTarget.builder()
             .portList(FirewallRuleTarget.PortList.create("portListId", null, null, null, null)).build()).build();
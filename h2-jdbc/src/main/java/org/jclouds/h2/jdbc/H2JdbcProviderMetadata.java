@@ -16,6 +16,18 @@
  */
 package org.jclouds.h2.jdbc;
 
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_CACHE_REGION_FACTORY;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_FETCH_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_PASSWORD;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_POOL_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_POOL_TIMEOUT;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_SCHEMA_GENERATION;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_URL;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_USER;
+
+import java.util.Properties;
+
 import org.jclouds.h2.jdbc.config.H2JdbcBlobStoreContextModule;
 import org.jclouds.jdbc.JdbcApiMetadata;
 import org.jclouds.providers.ProviderMetadata;
@@ -43,6 +55,20 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = JdbcApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_H2_URL, "jdbc:h2:./jclouds-db");
+      properties.setProperty(PROPERTY_H2_USER, "sa");
+      properties.setProperty(PROPERTY_H2_PASSWORD, "");
+      properties.setProperty(PROPERTY_H2_POOL_SIZE, "10");
+      properties.setProperty(PROPERTY_H2_POOL_TIMEOUT, "30");
+      properties.setProperty(PROPERTY_H2_CACHE_SIZE, "16384");
+      properties.setProperty(PROPERTY_H2_FETCH_SIZE, "0");
+      properties.setProperty(PROPERTY_H2_SCHEMA_GENERATION, "create");
+      properties.setProperty(PROPERTY_H2_CACHE_REGION_FACTORY, "");
+      return properties;
+   }
+
    public static class Builder extends BaseProviderMetadata.Builder {
       protected Builder() {
          id("h2-jdbc")
@@ -50,7 +76,9 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
                .apiMetadata(new JdbcApiMetadata()
                      .toBuilder()
                      .defaultModule(H2JdbcBlobStoreContextModule.class)
-                     .build());
+                     .defaultProperties(H2JdbcProviderMetadata.defaultProperties())
+                     .build())
+               .defaultProperties(H2JdbcProviderMetadata.defaultProperties());
       }
 
       @Override
@@ -16,23 +16,19 @@
  */
 package org.jclouds.h2.jdbc.config;
 
-import java.util.Properties;
-
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
 
 import com.google.inject.persist.jpa.JpaPersistModule;
 
 public class H2JdbcBlobStoreContextModule extends JdbcBlobStoreContextModule {
 
-   private static final String DEFAULT_FILE = "./jclouds-db";
-
    protected void configure() {
       super.configure();
 
-      Properties properties = new Properties();
-      properties.setProperty("hibernate.connection.url", "jdbc:h2:" + DEFAULT_FILE);
+      H2PersistenceProperties properties = new H2PersistenceProperties();
+      requestInjection(properties);
 
-      install(new JpaPersistModule("jclouds-h2").properties(properties));
+      install(new JpaPersistModule("jclouds-h2").properties(properties.get()));
    }
 
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_CACHE_REGION_FACTORY;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_CACHE_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_FETCH_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_PASSWORD;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_POOL_SIZE;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_POOL_TIMEOUT;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_SCHEMA_GENERATION;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_URL;
+import static org.jclouds.h2.jdbc.reference.H2JdbcConstants.PROPERTY_H2_USER;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_BATCH_SIZE;
+
+import java.io.Closeable;
+import java.util.Properties;
+
+import javax.inject.Named;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jclouds.lifecycle.Closer;
+
+import com.google.common.base.Strings;
+import com.google.inject.Inject;
+
+/**
+ * Persistence properties of the jclouds-h2 unit. The properties are handed to the persistence module when the
+ * context module is configured and filled in from the jclouds properties when this is injected, which happens before
+ * the eager {@link org.jclouds.jdbc.config.JPAInitializer} starts the persistence service.
+ * <p>
+ * Connections come from an H2 connection pool, so concurrent blob operations each get their own connection.
+ */
+public class H2PersistenceProperties {
+
+   private final Properties properties = new Properties();
+
+   public Properties get() {
+      return properties;
+   }
+
+   @Inject
+   void configure(@Named(PROPERTY_H2_URL) String url, @Named(PROPERTY_H2_USER) String user,
+         @Named(PROPERTY_H2_PASSWORD) String password, @Named(PROPERTY_H2_POOL_SIZE) int poolSize,
+         @Named(PROPERTY_H2_POOL_TIMEOUT) int poolTimeout, @Named(PROPERTY_H2_CACHE_SIZE) int cacheSize,
+         @Named(PROPERTY_JDBC_BATCH_SIZE) int batchSize, @Named(PROPERTY_H2_FETCH_SIZE) int fetchSize,
+         @Named(PROPERTY_H2_SCHEMA_GENERATION) String schemaGeneration,
+         @Named(PROPERTY_H2_CACHE_REGION_FACTORY) String cacheRegionFactory, Closer closer) {
+      final JdbcConnectionPool pool = JdbcConnectionPool.create(url + ";CACHE_SIZE=" + cacheSize, user, password);
+      pool.setMaxConnections(poolSize);
+      pool.setLoginTimeout(poolTimeout);
+      closer.addToClose(new Closeable() {
+         @Override
+         public void close() {
+            pool.dispose();
+         }
+      });
+
+      properties.put("hibernate.connection.datasource", pool);
+      properties.setProperty("hibernate.hbm2ddl.auto", schemaGeneration);
+      // Chunk inserts are flushed in batches of the same size
+      properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+      if (fetchSize > 0) {
+         properties.setProperty("hibernate.jdbc.fetch_size", String.valueOf(fetchSize));
+      }
+      if (!Strings.isNullOrEmpty(cacheRegionFactory)) {
+         properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+         properties.setProperty("hibernate.cache.region.factory_class", cacheRegionFactory);
+      } else {
+         properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+      }
+   }
+
+}
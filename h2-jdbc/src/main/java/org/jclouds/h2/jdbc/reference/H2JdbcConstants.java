@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.reference;
+
+/**
+ * Constants used in the h2 jdbc provider
+ */
+public final class H2JdbcConstants {
+
+    /**
+     * JDBC URL of the database, without the settings added by the provider
+     */
+    public static final String PROPERTY_H2_URL = "jclouds.h2.url";
+
+    public static final String PROPERTY_H2_USER = "jclouds.h2.user";
+
+    public static final String PROPERTY_H2_PASSWORD = "jclouds.h2.password";
+
+    /**
+     * Maximum number of pooled connections, which is the number of blob operations that can run concurrently
+     */
+    public static final String PROPERTY_H2_POOL_SIZE = "jclouds.h2.pool-size";
+
+    /**
+     * Seconds to wait for a pooled connection before failing when all of them are in use
+     */
+    public static final String PROPERTY_H2_POOL_TIMEOUT = "jclouds.h2.pool-timeout";
+
+    /**
+     * Size of the H2 page cache in KB
+     */
+    public static final String PROPERTY_H2_CACHE_SIZE = "jclouds.h2.cache-size";
+
+    /**
+     * Number of rows fetched at once by queries, 0 uses the driver default
+     */
+    public static final String PROPERTY_H2_FETCH_SIZE = "jclouds.h2.fetch-size";
+
+    /**
+     * Hibernate schema generation: {@code create} drops the data on every start, {@code update} keeps it and
+     * {@code validate} or {@code none} leave the schema alone
+     */
+    public static final String PROPERTY_H2_SCHEMA_GENERATION = "jclouds.h2.schema-generation";
+
+    /**
+     * Class of the Hibernate region factory of the second-level cache, the cache is disabled when empty
+     */
+    public static final String PROPERTY_H2_CACHE_REGION_FACTORY = "jclouds.h2.cache-region-factory";
+
+    private H2JdbcConstants() {
+        throw new AssertionError("Intentionally Unimplemented");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.jclouds.lifecycle.Closer;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "H2PersistencePropertiesTest")
+public class H2PersistencePropertiesTest {
+
+   @Test
+   public void testPooledDataSource() throws SQLException, IOException {
+      Closer closer = new Closer();
+      H2PersistenceProperties persistenceProperties = new H2PersistenceProperties();
+      persistenceProperties.configure("jdbc:h2:mem:pool-test", "sa", "", 2, 5, 1024, 16, 0, "update", "", closer);
+
+      Properties properties = persistenceProperties.get();
+      assertThat(properties.getProperty("hibernate.hbm2ddl.auto")).isEqualTo("update");
+      assertThat(properties.getProperty("hibernate.jdbc.batch_size")).isEqualTo("16");
+      assertThat(properties.getProperty("hibernate.jdbc.fetch_size")).isNull();
+      assertThat(properties.getProperty("hibernate.cache.use_second_level_cache")).isEqualTo("false");
+
+      DataSource dataSource = (DataSource) properties.get("hibernate.connection.datasource");
+      Connection first = dataSource.getConnection();
+      Connection second = dataSource.getConnection();
+      try {
+         assertThat(first).isNotSameAs(second);
+      } finally {
+         first.close();
+         second.close();
+         closer.close();
+      }
+   }
+
+}
@@ -22,9 +22,25 @@ import com.google.inject.Module;
 import org.jclouds.apis.ApiMetadata;
 import org.jclouds.apis.internal.BaseApiMetadata;
 import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.jdbc.codec.ChunkCodecs;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
 import java.net.URI;
+import java.util.Properties;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_BATCH_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CHUNK_DIRECTORY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CHUNK_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_COMPRESSION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CONTAINER_CACHE_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_DEDUPLICATION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_ORPHAN_GRACE_PERIOD;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_PREFETCH_CHUNKS;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_SEGMENT_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_WRITE_RETRIES;
 
 /**
  * Implementation of {@link ApiMetadata} for jclouds Jdbc BlobStore
@@ -45,6 +61,23 @@ public class JdbcApiMetadata extends BaseApiMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = BaseApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_JDBC_BATCH_SIZE, "8");
+      properties.setProperty(PROPERTY_JDBC_PREFETCH_CHUNKS, "0");
+      properties.setProperty(PROPERTY_JDBC_DEDUPLICATION, "false");
+      properties.setProperty(PROPERTY_JDBC_CONTAINER_CACHE_SIZE, "1000");
+      properties.setProperty(PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY, "60");
+      properties.setProperty(PROPERTY_JDBC_CHUNK_SIZE, String.valueOf(JdbcConstants.DEFAULT_CHUNK_SIZE));
+      properties.setProperty(PROPERTY_JDBC_COMPRESSION, ChunkCodecs.NONE.getName());
+      properties.setProperty(PROPERTY_JDBC_CHUNK_DIRECTORY, "");
+      properties.setProperty(PROPERTY_JDBC_SEGMENT_SIZE, String.valueOf(256L * 1024 * 1024));
+      properties.setProperty(PROPERTY_JDBC_WRITE_RETRIES, "3");
+      properties.setProperty(PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL, "3600");
+      properties.setProperty(PROPERTY_JDBC_ORPHAN_GRACE_PERIOD, "3600");
+      return properties;
+   }
+
    public static class Builder extends BaseApiMetadata.Builder<Builder> {
 
       protected Builder() {
@@ -58,6 +91,7 @@ public class JdbcApiMetadata extends BaseApiMetadata {
          .version("1")
          .documentation(URI.create("http://www.jclouds.org/documentation/userguide/blobstore-guide"))
          .view(BlobStoreContext.class)
+         .defaultProperties(JdbcApiMetadata.defaultProperties())
          .defaultModules(ImmutableSet.<Class<? extends Module>>of(JdbcBlobStoreContextModule.class));
       }
 
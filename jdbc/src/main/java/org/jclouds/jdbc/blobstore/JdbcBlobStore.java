@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.blobstore;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.config.LocalBlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.Payload;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.propagate;
+
+/**
+ * Blob store backed by the {@link LocalBlobStore} with native multipart uploads and copies. Parts are stored as chunks
+ * when they are uploaded and completing an upload only appends the chunk lists of the parts to the payload of the
+ * blob, where the local blob store would store every part as a blob and copy the parts into the final blob. Copies
+ * share the chunks of the source instead of reading and storing the data again.
+ */
+@Singleton
+public class JdbcBlobStore extends ForwardingBlobStore {
+
+   private final JdbcService jdbcService;
+   private final JdbcStorageStrategy storageStrategy;
+   private final JdbcBlobKeyValidator jdbcBlobKeyValidator;
+
+   @Inject
+   JdbcBlobStore(LocalBlobStore localBlobStore, JdbcService jdbcService, JdbcStorageStrategy storageStrategy,
+         JdbcBlobKeyValidator jdbcBlobKeyValidator) {
+      super(localBlobStore);
+      this.jdbcService = jdbcService;
+      this.storageStrategy = storageStrategy;
+      this.jdbcBlobKeyValidator = jdbcBlobKeyValidator;
+   }
+
+   /**
+    * Reads the metadata of a blob without loading its payload, the local blob store would load the whole blob
+    */
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      checkContainerExists(container);
+      return storageStrategy.getBlobMetadata(container, name);
+   }
+
+   /**
+    * Blobs are streamed to the database chunk by chunk, a multipart put would only store the data twice
+    */
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      if (options.isMultipart()) {
+         return delegate().putBlob(container, blob, new PutOptions().setBlobAccess(options.getBlobAccess()));
+      }
+      return delegate().putBlob(container, blob, options);
+   }
+
+   /**
+    * Copies a blob without reading its data, the copy shares the chunks of the source. Conditional copies are left
+    * to the local blob store.
+    */
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      if (options.ifMatch() != null || options.ifNoneMatch() != null || options.ifModifiedSince() != null
+            || options.ifUnmodifiedSince() != null) {
+         return delegate().copyBlob(fromContainer, fromName, toContainer, toName, options);
+      }
+      checkContainerExists(fromContainer);
+      checkContainerExists(toContainer);
+      jdbcBlobKeyValidator.validate(toName);
+      BlobEntity copy = jdbcService.copyBlob(fromContainer, fromName, toContainer, toName, options.contentMetadata(),
+            options.userMetadata());
+      if (copy == null) {
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      return copy.getEtag();
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      checkContainerExists(container);
+      jdbcBlobKeyValidator.validate(blobMetadata.getName());
+      String uploadId = jdbcService.createMultipartUpload(container, blobMetadata, options.getBlobAccess());
+      return MultipartUpload.create(container, blobMetadata.getName(), uploadId, blobMetadata, options);
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      jdbcService.abortMultipartUpload(mpu.id());
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      return jdbcService.completeMultipartUpload(mpu.id(), parts);
+   }
+
+   /**
+    * Parts are stored in their own transactions, the parts of an upload can be uploaded concurrently
+    */
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      checkArgument(partNumber > 0 && partNumber <= getMaximumNumberOfParts(), "Invalid part number %s", partNumber);
+      MultipartPartEntity part;
+      try {
+         part = jdbcService.storeMultipartPart(mpu.id(), partNumber, payload);
+      } catch (IOException e) {
+         throw propagate(e);
+      }
+      return toMultipartPart(part);
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      for (MultipartPartEntity part : jdbcService.findMultipartParts(mpu.id())) {
+         parts.add(toMultipartPart(part));
+      }
+      return parts.build();
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      ImmutableList.Builder<MultipartUpload> uploads = ImmutableList.builder();
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploads(container)) {
+         uploads.add(MultipartUpload.create(container, upload.getKey(), upload.getId(), null, null));
+      }
+      return uploads.build();
+   }
+
+   private void checkContainerExists(String container) {
+      if (!containerExists(container)) {
+         throw new ContainerNotFoundException(container, "container does not exist");
+      }
+   }
+
+   private static MultipartPart toMultipartPart(MultipartPartEntity part) {
+      return MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag(), part.getLastModified());
+   }
+
+}
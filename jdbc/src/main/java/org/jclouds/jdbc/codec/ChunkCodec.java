@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.codec;
+
+import java.io.IOException;
+
+/**
+ * Encodes the data of a chunk before it is stored and decodes it when it is read. The name of the codec is recorded
+ * with each payload so payloads stored with different codecs can be read back.
+ */
+public interface ChunkCodec {
+
+   /**
+    * @return the name recorded in the payloads stored with this codec
+    */
+   String getName();
+
+   /**
+    * @param buffer the chunk data, starting at index 0
+    * @param length the number of bytes of data in the buffer
+    * @return the encoded data, which may be the buffer itself when it holds exactly the data and the codec leaves the
+    *         data unchanged
+    */
+   byte[] encode(byte[] buffer, int length);
+
+   /**
+    * @param data the encoded data
+    * @param length the length of the decoded data
+    * @return the decoded data
+    */
+   byte[] decode(byte[] data, int length) throws IOException;
+
+}
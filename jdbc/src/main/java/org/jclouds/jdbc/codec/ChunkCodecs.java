@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.codec;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The chunk codecs supported by the jdbc provider
+ */
+public final class ChunkCodecs {
+
+   /**
+    * Stores the chunks as they are
+    */
+   public static final ChunkCodec NONE = new NoneCodec();
+
+   /**
+    * Compresses the chunks with Deflate, favouring speed over compression ratio
+    */
+   public static final ChunkCodec DEFLATE = new DeflateCodec();
+
+   private ChunkCodecs() {
+      throw new AssertionError("Intentionally Unimplemented");
+   }
+
+   /**
+    * @param name the name of the codec, null for payloads stored before codecs were recorded
+    * @return the codec with the given name
+    * @throws IllegalArgumentException if there is no codec with that name
+    */
+   public static ChunkCodec forName(@Nullable String name) {
+      if (name == null || NONE.getName().equals(name)) {
+         return NONE;
+      }
+      if (DEFLATE.getName().equals(name)) {
+         return DEFLATE;
+      }
+      throw new IllegalArgumentException("Unknown chunk compression: " + name);
+   }
+
+   private static final class NoneCodec implements ChunkCodec {
+
+      @Override
+      public String getName() {
+         return "none";
+      }
+
+      @Override
+      public byte[] encode(byte[] buffer, int length) {
+         return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+      }
+
+      @Override
+      public byte[] decode(byte[] data, int length) {
+         return data;
+      }
+
+   }
+
+   private static final class DeflateCodec implements ChunkCodec {
+
+      @Override
+      public String getName() {
+         return "deflate";
+      }
+
+      @Override
+      public byte[] encode(byte[] buffer, int length) {
+         Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+         try {
+            deflater.setInput(buffer, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] block = new byte[64 * 1024];
+            while (!deflater.finished()) {
+               out.write(block, 0, deflater.deflate(block));
+            }
+            return out.toByteArray();
+         } finally {
+            deflater.end();
+         }
+      }
+
+      @Override
+      public byte[] decode(byte[] data, int length) throws IOException {
+         Inflater inflater = new Inflater();
+         try {
+            inflater.setInput(data);
+            byte[] result = new byte[length];
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+               int bytes = inflater.inflate(result, inflated, length - inflated);
+               if (bytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                  break;
+               }
+               inflated = inflated + bytes;
+            }
+            if (inflated != length) {
+               throw new IOException("Corrupted chunk, expected " + length + " bytes but got " + inflated);
+            }
+            return result;
+         } catch (DataFormatException e) {
+            throw new IOException("Corrupted chunk", e);
+         } finally {
+            inflater.end();
+         }
+      }
+
+   }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import org.jclouds.jdbc.store.ChunkStore;
+import org.jclouds.jdbc.store.DatabaseChunkStore;
+import org.jclouds.jdbc.store.SegmentChunkStore;
+import org.jclouds.lifecycle.Closer;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CHUNK_DIRECTORY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_SEGMENT_SIZE;
+
+/**
+ * Binds the {@link ChunkStore} selected by {@link org.jclouds.jdbc.reference.JdbcConstants#PROPERTY_JDBC_CHUNK_DIRECTORY}
+ */
+public class ChunkStoreModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+   }
+
+   @Provides
+   @Singleton
+   ChunkStore provideChunkStore(@Named(PROPERTY_JDBC_CHUNK_DIRECTORY) String directory,
+         @Named(PROPERTY_JDBC_SEGMENT_SIZE) long segmentSize, Closer closer) throws IOException {
+      ChunkStore chunkStore = directory.isEmpty() ? new DatabaseChunkStore()
+            : new SegmentChunkStore(new File(directory), segmentSize);
+      closer.addToClose(chunkStore);
+      return chunkStore;
+   }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matchers;
+import org.jclouds.jdbc.metrics.TimedOperationInterceptor;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.lang.reflect.Method;
+
+/**
+ * Times the operations of {@link JdbcService} into the bound {@link org.jclouds.jdbc.metrics.JdbcMetrics}
+ */
+public class JdbcMetricsModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      TimedOperationInterceptor interceptor = new TimedOperationInterceptor();
+      requestInjection(interceptor);
+      bindInterceptor(Matchers.subclassesOf(JdbcService.class), new AbstractMatcher<Method>() {
+         @Override
+         public boolean matches(Method method) {
+            return method.getDeclaringClass() == JdbcService.class && !method.isSynthetic();
+         }
+      }, interceptor);
+   }
+
+}
@@ -17,26 +17,43 @@
 package org.jclouds.jdbc.conversion;
 
 import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import org.jclouds.Constants;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.jdbc.codec.ChunkCodecs;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
-import org.jclouds.jdbc.util.JdbcInputStream;
+import org.jclouds.jdbc.util.JdbcByteSource;
+
+import javax.inject.Named;
+import java.util.List;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_PREFETCH_CHUNKS;
 
 public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
 
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
+   private final int prefetchChunks;
+   private final ListeningExecutorService userExecutor;
 
    @Inject
-   BlobEntityToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService) {
+   BlobEntityToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService,
+         @Named(PROPERTY_JDBC_PREFETCH_CHUNKS) int prefetchChunks,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.blobBuilders = blobBuilders;
       this.jdbcService = jdbcService;
+      this.prefetchChunks = prefetchChunks;
+      this.userExecutor = userExecutor;
    }
 
    @Override
@@ -46,6 +63,7 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
       }
 
       PayloadEntity payload = blobEntity.getPayload();
+      Long contentLength = payload.getContentLength();
       BlobBuilder builder = blobBuilders.get()
             .name(blobEntity.getKey())
             .userMetadata(blobEntity.getUserMetadata());
@@ -54,7 +72,23 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
          builder.type(StorageType.FOLDER);
       }
       else {
-         builder.payload(new JdbcInputStream(jdbcService, blobEntity.getPayload().getChunks()));
+         final Long payloadId = payload.getId();
+         // Blobs stored without a content length only know their size from their chunks
+         if (contentLength == null) {
+            contentLength = blobEntity.getSize() != null ?
+                  blobEntity.getSize() :
+                  jdbcService.findPayloadSize(payloadId);
+         }
+         // The chunk list is only loaded when the payload is opened, metadata reads never need it
+         Supplier<List<Long>> chunks = Suppliers.memoize(new Supplier<List<Long>>() {
+            @Override
+            public List<Long> get() {
+               return jdbcService.findChunkIds(payloadId);
+            }
+         });
+         int chunkSize = payload.getChunkSize() != null ? payload.getChunkSize() : JdbcConstants.DEFAULT_CHUNK_SIZE;
+         builder.payload(new JdbcByteSource(jdbcService, chunks, chunkSize, contentLength, prefetchChunks,
+               prefetchChunks > 0 ? userExecutor : null, ChunkCodecs.forName(payload.getCompression())));
       }
 
       Blob blob = builder.build();
@@ -70,7 +104,7 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
       blob.getMetadata().getContentMetadata().setContentDisposition(payload.getContentDisposition());
       blob.getMetadata().getContentMetadata().setContentEncoding(payload.getContentEncoding());
       blob.getMetadata().getContentMetadata().setContentLanguage(payload.getContentLanguage());
-      blob.getMetadata().getContentMetadata().setContentLength(payload.getContentLength());
+      blob.getMetadata().getContentMetadata().setContentLength(contentLength);
       blob.getMetadata().getContentMetadata().setContentMD5(payload.getContentMD5() == null ?
             null :
             HashCode.fromBytes(payload.getContentMD5()));
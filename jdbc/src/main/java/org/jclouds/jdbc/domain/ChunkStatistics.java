@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.domain;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Statistics about the chunks stored in the database and how many times they are referenced by payloads
+ */
+public final class ChunkStatistics {
+
+   private final long chunks;
+   private final long references;
+   private final long storedBytes;
+   private final long referencedBytes;
+
+   public ChunkStatistics(long chunks, long references, long storedBytes, long referencedBytes) {
+      this.chunks = chunks;
+      this.references = references;
+      this.storedBytes = storedBytes;
+      this.referencedBytes = referencedBytes;
+   }
+
+   /**
+    * @return the number of chunk rows
+    */
+   public long getChunks() {
+      return chunks;
+   }
+
+   /**
+    * @return the number of chunk references from payloads
+    */
+   public long getReferences() {
+      return references;
+   }
+
+   /**
+    * @return the bytes held by the chunk rows
+    */
+   public long getStoredBytes() {
+      return storedBytes;
+   }
+
+   /**
+    * @return the bytes of all the payloads, counting shared chunks once per reference
+    */
+   public long getReferencedBytes() {
+      return referencedBytes;
+   }
+
+   /**
+    * @return the referenced bytes divided by the stored bytes, 1 when no chunk is shared
+    */
+   public double getDeduplicationRatio() {
+      return storedBytes == 0 ? 1 : (double) referencedBytes / storedBytes;
+   }
+
+   @Override
+   public String toString() {
+      return MoreObjects.toStringHelper(this)
+            .add("chunks", chunks)
+            .add("references", references)
+            .add("storedBytes", storedBytes)
+            .add("referencedBytes", referencedBytes)
+            .add("deduplicationRatio", getDeduplicationRatio())
+            .toString();
+   }
+
+}
@@ -20,21 +20,29 @@ import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.Tier;
 
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.Date;
 import java.util.Map;
 
+/**
+ * The table and the columns the set-based statements of the repositories refer to in native SQL are named
+ * explicitly, so a naming strategy of the JPA provider cannot rename them.
+ */
 @Entity
-@Table
+@Table(name = "BlobEntity", indexes = @Index(name = "blob_container_key", columnList = "id, blob_key"))
 @IdClass(value = BlobEntityPK.class)
 public class BlobEntity {
 
@@ -43,13 +51,21 @@ public class BlobEntity {
    @JoinColumn(name = "id")
    private ContainerEntity containerEntity;
 
+   /**
+    * Stored in blob_key, key is a reserved word in several databases
+    */
    @Id
+   @Column(name = "blob_key")
    private String key;
 
    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   @JoinColumn(name = "payload_id")
    private PayloadEntity payload;
 
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "BlobUserMetadata", joinColumns = {
+         @JoinColumn(name = "container_id", referencedColumnName = "id"),
+         @JoinColumn(name = "blob_key", referencedColumnName = "blob_key") })
    public Map<String, String> userMetadata;
 
    private Date creationDate;
@@ -58,8 +74,15 @@ public class BlobEntity {
    private Tier tier;
    private Long size;
    private String etag;
+   @Column(name = "directory")
    private boolean directory;
 
+   /**
+    * Concurrent writers of the same blob are detected when the blob is flushed, the one that loses is retried
+    */
+   @Version
+   private Long version;
+
    @PrePersist
    private void defaults() {
       this.lastModified = new Date();
@@ -177,6 +200,14 @@ public class BlobEntity {
       this.etag = etag;
    }
 
+   public Long getVersion() {
+      return version;
+   }
+
+   public void setVersion(Long version) {
+      this.version = version;
+   }
+
    public static Builder builder(ContainerEntity containerEntity, String key) {
       return new Builder(containerEntity, key);
    }
@@ -18,30 +18,86 @@ package org.jclouds.jdbc.entity;
 
 import org.jclouds.jdbc.reference.JdbcConstants;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Date;
 
 @Entity
-@Table
+@Table(name = "ChunkEntity", uniqueConstraints = @UniqueConstraint(name = "chunk_hash", columnNames = "hash"),
+      indexes = @Index(name = "chunk_segment", columnList = "segment"))
+@Cacheable(false)
 public class ChunkEntity {
 
    @Id
    @GeneratedValue
+   @Column(name = "id")
    private Long id;
 
+   /**
+    * The chunk data as encoded by the payload codec, null when it is kept in a segment file. Twice the maximum chunk size leaves room for the overhead of
+    * compressing incompressible data
+    */
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(length = 2 * JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
+   /**
+    * Length of the decoded data
+    */
    private int size;
 
+   /**
+    * Number of the segment file holding the encoded data, null when the data is kept in the database
+    */
+   private Integer segment;
+
+   /**
+    * Position of the encoded data in the segment file
+    */
+   private Long segmentOffset;
+
+   /**
+    * Length of the encoded data in the segment file
+    */
+   private Integer storedSize;
+
+   /**
+    * Hex encoded SHA-256 of the chunk data, only set when the chunk was stored with deduplication enabled. Hashes
+    * are unique, a write racing another one storing the same new chunk fails instead of storing it twice
+    */
+   @Column(length = 64)
+   private String hash;
+
+   /**
+    * Number of payload chunk lists referencing this chunk
+    */
+   @Column(name = "refCount")
+   private long refCount;
+
+   /**
+    * When the chunk was stored or last gained or lost a reference, chunks that are not in any chunk list are only
+    * reaped once this is older than the grace period
+    */
+   @Column(name = "lastReferenced")
+   private Date lastReferenced;
+
    public ChunkEntity(byte[] data, int size) {
+      this(data, size, null);
+   }
+
+   public ChunkEntity(byte[] data, int size, String hash) {
       this.data = data;
       this.size = size;
+      this.hash = hash;
+      this.refCount = 1;
+      this.lastReferenced = new Date();
    }
 
    public ChunkEntity() {
@@ -70,4 +126,52 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public Integer getSegment() {
+      return segment;
+   }
+
+   public void setSegment(Integer segment) {
+      this.segment = segment;
+   }
+
+   public Long getSegmentOffset() {
+      return segmentOffset;
+   }
+
+   public void setSegmentOffset(Long segmentOffset) {
+      this.segmentOffset = segmentOffset;
+   }
+
+   public Integer getStoredSize() {
+      return storedSize;
+   }
+
+   public void setStoredSize(Integer storedSize) {
+      this.storedSize = storedSize;
+   }
+
+   public String getHash() {
+      return hash;
+   }
+
+   public void setHash(String hash) {
+      this.hash = hash;
+   }
+
+   public long getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(long refCount) {
+      this.refCount = refCount;
+   }
+
+   public Date getLastReferenced() {
+      return lastReferenced;
+   }
+
+   public void setLastReferenced(Date lastReferenced) {
+      this.lastReferenced = lastReferenced;
+   }
 }
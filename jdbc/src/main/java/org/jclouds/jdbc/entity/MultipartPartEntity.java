@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import javax.persistence.Cacheable;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OrderColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An uploaded part of a multipart upload. The part owns the references to its chunks until the upload is completed,
+ * when its chunk list is appended to the payload of the blob.
+ */
+@Entity
+@Cacheable(false)
+@Table(name = "MultipartPartEntity", uniqueConstraints = @UniqueConstraint(columnNames = { "upload_id", "partNumber" }))
+public class MultipartPartEntity {
+
+   @Id
+   @GeneratedValue
+   @Column(name = "id")
+   private Long id;
+
+   @ManyToOne
+   @JoinColumn(name = "upload_id")
+   private MultipartUploadEntity upload;
+
+   private int partNumber;
+
+   /**
+    * Ordered chunk ids, only loaded when the upload is aborted
+    */
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "MultipartPartChunks", joinColumns = @JoinColumn(name = "part_id"),
+         indexes = @Index(name = "part_chunks_chunk", columnList = "chunk_id"))
+   @Column(name = "chunk_id")
+   @OrderColumn(name = "chunk_index")
+   private List<Long> chunks;
+
+   /**
+    * Size of all the chunks but the last one
+    */
+   private int chunkSize;
+
+   /**
+    * Name of the codec the chunks were encoded with, null when they are not encoded
+    */
+   private String compression;
+
+   private long size;
+   private String etag;
+   private Date lastModified;
+
+   public MultipartPartEntity() {
+   }
+
+   public MultipartPartEntity(MultipartUploadEntity upload, int partNumber, List<Long> chunks, int chunkSize,
+         String compression, long size, String etag) {
+      this.upload = upload;
+      this.partNumber = partNumber;
+      this.chunks = chunks;
+      this.chunkSize = chunkSize;
+      this.compression = compression;
+      this.size = size;
+      this.etag = etag;
+   }
+
+   @PrePersist
+   private void defaults() {
+      this.lastModified = new Date();
+   }
+
+   public Long getId() {
+      return id;
+   }
+
+   public void setId(Long id) {
+      this.id = id;
+   }
+
+   public MultipartUploadEntity getUpload() {
+      return upload;
+   }
+
+   public void setUpload(MultipartUploadEntity upload) {
+      this.upload = upload;
+   }
+
+   public int getPartNumber() {
+      return partNumber;
+   }
+
+   public void setPartNumber(int partNumber) {
+      this.partNumber = partNumber;
+   }
+
+   public List<Long> getChunks() {
+      return chunks;
+   }
+
+   public void setChunks(List<Long> chunks) {
+      this.chunks = chunks;
+   }
+
+   public int getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
+   public String getCompression() {
+      return compression;
+   }
+
+   public void setCompression(String compression) {
+      this.compression = compression;
+   }
+
+   public long getSize() {
+      return size;
+   }
+
+   public void setSize(long size) {
+      this.size = size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public void setEtag(String etag) {
+      this.etag = etag;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public void setLastModified(Date lastModified) {
+      this.lastModified = lastModified;
+   }
+
+}
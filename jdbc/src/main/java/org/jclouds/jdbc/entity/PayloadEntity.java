@@ -18,24 +18,52 @@ package org.jclouds.jdbc.entity;
 
 import com.google.common.collect.ImmutableList;
 
+import javax.persistence.Cacheable;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
+// Chunk lists are appended to with native statements when multipart uploads are completed
 @Entity
+@Cacheable(false)
 public class PayloadEntity {
 
    @Id
    @GeneratedValue
    private Long id;
 
-   @ElementCollection(fetch = FetchType.EAGER)
+   /**
+    * Ordered chunk ids, the same chunk may appear several times when chunks are deduplicated. The list is only loaded
+    * when the data is read, metadata reads never touch it.
+    */
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "PayloadChunks", joinColumns = @JoinColumn(name = "payload_id"),
+         indexes = @Index(name = "payload_chunks_chunk", columnList = "chunk_id"))
+   @Column(name = "chunk_id")
+   @OrderColumn(name = "chunk_index")
    private List<Long> chunks;
 
+   /**
+    * Size of all the chunks but the last one, null for the payloads stored with the default chunk size before the
+    * size was recorded and {@link org.jclouds.jdbc.util.JdbcByteSource#VARIABLE_CHUNK_SIZE} for the payloads of
+    * multipart uploads whose parts do not line up with the chunks
+    */
+   private Integer chunkSize;
+
+   /**
+    * Name of the codec the chunks were encoded with, null when they are not encoded
+    */
+   private String compression;
+
    private String cacheControl;
    private String contentType;
    private Long contentLength;
@@ -77,6 +105,22 @@ public class PayloadEntity {
       this.chunks = chunks;
    }
 
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(Integer chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
+   public String getCompression() {
+      return compression;
+   }
+
+   public void setCompression(String compression) {
+      this.compression = compression;
+   }
+
    public String getCacheControl() {
       return cacheControl;
    }
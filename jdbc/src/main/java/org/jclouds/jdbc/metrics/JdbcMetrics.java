@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.metrics;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Receives the counters and timings of the jdbc blobstore. Operations of {@link org.jclouds.jdbc.service.JdbcService}
+ * are timed under {@code JdbcService.<method>}, the service counts the events below. Metrics are exported through JMX
+ * unless another implementation is bound.
+ */
+@ImplementedBy(JmxJdbcMetrics.class)
+public interface JdbcMetrics {
+
+   String BYTES_WRITTEN = "bytes.written";
+   String BYTES_READ = "bytes.read";
+   String CHUNKS_WRITTEN = "chunks.written";
+   String CHUNKS_DEDUPLICATED = "chunks.deduplicated";
+   String CHUNKS_READ = "chunks.read";
+   String CHUNK_QUERIES = "chunk.queries";
+   String CONTAINER_LOOKUPS = "container.lookups";
+   String CONTAINER_QUERIES = "container.queries";
+   String WRITE_RETRIES = "write.retries";
+   String ORPHAN_CHUNKS_DELETED = "orphan-chunks.deleted";
+
+   void increment(String counter, long delta);
+
+   /**
+    * @param failed whether the operation ended with an exception
+    */
+   void time(String operation, long elapsedNanos, boolean failed);
+
+}
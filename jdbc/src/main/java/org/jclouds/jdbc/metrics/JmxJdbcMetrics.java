@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.metrics;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.jclouds.lifecycle.Closer;
+
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the metrics in memory and registers them in the platform MBean server as
+ * {@code org.jclouds.jdbc:type=JdbcMetrics,instance=<n>} until the context is closed.
+ */
+@Singleton
+public class JmxJdbcMetrics implements JdbcMetrics, JdbcMetricsMXBean {
+
+   private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+   private final ConcurrentMap<String, AtomicLong> counters = Maps.newConcurrentMap();
+   private final ConcurrentMap<String, Timer> timers = Maps.newConcurrentMap();
+
+   @Inject
+   JmxJdbcMetrics(Closer closer) throws JMException {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName("org.jclouds.jdbc:type=JdbcMetrics,instance="
+            + INSTANCES.incrementAndGet());
+      server.registerMBean(this, name);
+      closer.addToClose(new Closeable() {
+         @Override
+         public void close() {
+            try {
+               server.unregisterMBean(name);
+            } catch (JMException e) {
+               // already unregistered
+            }
+         }
+      });
+   }
+
+   @Override
+   public void increment(String counter, long delta) {
+      AtomicLong value = counters.get(counter);
+      if (value == null) {
+         AtomicLong created = new AtomicLong();
+         value = counters.putIfAbsent(counter, created);
+         if (value == null) {
+            value = created;
+         }
+      }
+      value.addAndGet(delta);
+   }
+
+   @Override
+   public void time(String operation, long elapsedNanos, boolean failed) {
+      Timer timer = timers.get(operation);
+      if (timer == null) {
+         Timer created = new Timer();
+         timer = timers.putIfAbsent(operation, created);
+         if (timer == null) {
+            timer = created;
+         }
+      }
+      timer.record(elapsedNanos, failed);
+   }
+
+   @Override
+   public Map<String, Long> getCounters() {
+      ImmutableSortedMap.Builder<String, Long> result = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+         result.put(counter.getKey(), counter.getValue().get());
+      }
+      return result.build();
+   }
+
+   @Override
+   public Map<String, Long> getOperationCounts() {
+      ImmutableSortedMap.Builder<String, Long> result = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+         result.put(timer.getKey(), timer.getValue().count.get());
+      }
+      return result.build();
+   }
+
+   @Override
+   public Map<String, Long> getOperationFailures() {
+      ImmutableSortedMap.Builder<String, Long> result = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+         result.put(timer.getKey(), timer.getValue().failures.get());
+      }
+      return result.build();
+   }
+
+   @Override
+   public Map<String, Double> getOperationMeanMillis() {
+      ImmutableSortedMap.Builder<String, Double> result = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+         long count = timer.getValue().count.get();
+         result.put(timer.getKey(), count == 0 ? 0 : toMillis(timer.getValue().totalNanos.get()) / count);
+      }
+      return result.build();
+   }
+
+   @Override
+   public Map<String, Double> getOperationMaxMillis() {
+      ImmutableSortedMap.Builder<String, Double> result = ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+         result.put(timer.getKey(), toMillis(timer.getValue().maxNanos.get()));
+      }
+      return result.build();
+   }
+
+   @Override
+   public void reset() {
+      counters.clear();
+      timers.clear();
+   }
+
+   private static double toMillis(long nanos) {
+      return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   private static final class Timer {
+      private final AtomicLong count = new AtomicLong();
+      private final AtomicLong failures = new AtomicLong();
+      private final AtomicLong totalNanos = new AtomicLong();
+      private final AtomicLong maxNanos = new AtomicLong();
+
+      private void record(long elapsedNanos, boolean failed) {
+         count.incrementAndGet();
+         if (failed) {
+            failures.incrementAndGet();
+         }
+         totalNanos.addAndGet(elapsedNanos);
+         long max = maxNanos.get();
+         while (elapsedNanos > max && !maxNanos.compareAndSet(max, elapsedNanos)) {
+            max = maxNanos.get();
+         }
+      }
+   }
+
+}
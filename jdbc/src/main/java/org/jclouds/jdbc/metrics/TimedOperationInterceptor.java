@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.metrics;
+
+import com.google.inject.Inject;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Times the operations of {@link org.jclouds.jdbc.service.JdbcService}. Transactional operations are timed with
+ * their transaction when the interceptor is bound before the transaction interceptor.
+ */
+public class TimedOperationInterceptor implements MethodInterceptor {
+
+   @Inject
+   private JdbcMetrics metrics;
+
+   @Override
+   public Object invoke(MethodInvocation invocation) throws Throwable {
+      long start = System.nanoTime();
+      boolean failed = true;
+      try {
+         Object result = invocation.proceed();
+         failed = false;
+         return result;
+      } finally {
+         metrics.time(invocation.getMethod().getDeclaringClass().getSimpleName() + "."
+               + invocation.getMethod().getName(), System.nanoTime() - start, failed);
+      }
+   }
+
+}
@@ -23,6 +23,86 @@ public final class JdbcConstants {
 
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    /**
+     * Largest chunk size that can be configured, the chunk data column is sized after it
+     */
+    public static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Size of the chunks new payloads are split in, up to {@link #MAX_CHUNK_SIZE}. Payloads keep the chunk size they
+     * were stored with, so it can be changed at any time.
+     */
+    public static final String PROPERTY_JDBC_CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
+    /**
+     * Compression applied to the chunks of new payloads, {@code none} or {@code deflate}. Payloads keep the
+     * compression they were stored with.
+     */
+    public static final String PROPERTY_JDBC_COMPRESSION = "jclouds.jdbc.compression";
+
+    /**
+     * Number of chunk inserts that are flushed to the database together while a payload is being stored.
+     * This is also the number of chunk buffers kept around for reuse between writes.
+     */
+    public static final String PROPERTY_JDBC_BATCH_SIZE = "jclouds.jdbc.batch-size";
+
+    /**
+     * Number of chunks that blob streams load with a single query. When greater than zero the next chunks are
+     * prefetched on the user executor while the current ones are read. Zero loads one chunk at a time.
+     */
+    public static final String PROPERTY_JDBC_PREFETCH_CHUNKS = "jclouds.jdbc.prefetch-chunks";
+
+    /**
+     * When true chunks are keyed by the SHA-256 of their data and shared between payloads, each chunk keeping a
+     * count of the payloads referencing it. Chunks stored while the mode was off are never shared.
+     */
+    public static final String PROPERTY_JDBC_DEDUPLICATION = "jclouds.jdbc.deduplication";
+
+    /**
+     * Maximum number of containers whose id and access are cached by name. The cache is invalidated when a
+     * container is created, deleted or its access changes through this provider, changes made by other processes
+     * sharing the database are only seen once the cached container expires, so it must be disabled with 0 then.
+     */
+    public static final String PROPERTY_JDBC_CONTAINER_CACHE_SIZE = "jclouds.jdbc.container-cache-size";
+
+    /**
+     * Time in seconds after which a cached container is looked up again, bounding how long a cached container may
+     * be stale. 0 disables the cache.
+     */
+    public static final String PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY = "jclouds.jdbc.container-cache-expiry";
+
+    /**
+     * Directory of the segment files the chunk data is appended to instead of the chunk rows, empty keeps the data in
+     * the database. The chunks stored in the database remain readable once it is set.
+     */
+    public static final String PROPERTY_JDBC_CHUNK_DIRECTORY = "jclouds.jdbc.chunk-directory";
+
+    /**
+     * Size in bytes from which a new segment file is started. The space of deleted chunks is only freed once a whole
+     * segment is unused, smaller segments free it sooner.
+     */
+    public static final String PROPERTY_JDBC_SEGMENT_SIZE = "jclouds.jdbc.segment-size";
+
+    /**
+     * Number of times a blob write is retried when a concurrent write of the same key made it fail. The data of the
+     * blob is stored once, only the short transaction writing the blob is retried. With deduplication this is also the
+     * number of times the data is stored again when a concurrent write stored the same new chunk.
+     */
+    public static final String PROPERTY_JDBC_WRITE_RETRIES = "jclouds.jdbc.write-retries";
+
+    /**
+     * Interval in seconds between the deletions of the chunks left behind by failed writes and overwritten blobs,
+     * 0 disables them.
+     */
+    public static final String PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL = "jclouds.jdbc.orphan-reaper-interval";
+
+    /**
+     * Age in seconds an unreferenced chunk must reach before it is deleted. It must be longer than the longest write,
+     * since the chunks of a write in progress are not referenced by any payload yet, and than the longest read of a
+     * blob that may be overwritten meanwhile.
+     */
+    public static final String PROPERTY_JDBC_ORPHAN_GRACE_PERIOD = "jclouds.jdbc.orphan-grace-period";
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
@@ -16,15 +16,24 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.Tier;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+import org.jclouds.jdbc.util.KeyPrefixes;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
@@ -42,13 +51,147 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
                 .getResultList();
     }
 
-   public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
-      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
+   /**
+    * Checks if a blob exists with a single lookup on the container name and blob key, without loading the blob.
+    */
+   public boolean exists(String containerName, String key) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.name = :containerName AND b.key = :key", Long.class)
+            .setParameter("containerName", containerName)
+            .setParameter("key", key)
+            .getSingleResult() > 0;
+   }
+
+   /**
+    * @return the access of a blob, or null if the blob does not exist
+    */
+   public BlobAccess findBlobAccess(String containerName, String key) {
+      return findAttribute(containerName, key, "b.blobAccess", BlobAccess.class);
+   }
+
+   /**
+    * @return the content type of a blob, or null if the blob does not exist or has no content type
+    */
+   public String findContentType(String containerName, String key) {
+      return findAttribute(containerName, key, "b.payload.contentType", String.class);
+   }
+
+   /**
+    * Reads the metadata of a blob with a projection on the blob and its payload and a query on its user metadata,
+    * the chunk list of the payload is never read.
+    *
+    * @return a detached blob whose payload only holds the content metadata and its id, or null if the blob does not exist
+    */
+   public BlobEntity findBlobMetadata(String containerName, String key) {
+      List<Object[]> rows = entityManager.get().createQuery("SELECT b.etag, b.size, b.tier, b.blobAccess, "
+            + "b.creationDate, b.lastModified, b.directory, p.cacheControl, p.contentType, p.contentLength, "
+            + "p.contentMD5, p.contentDisposition, p.contentLanguage, p.contentEncoding, p.expires, p.id "
+            + "FROM " + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity.name = :containerName AND b.key = :key", Object[].class)
+            .setParameter("containerName", containerName)
+            .setParameter("key", key)
+            .getResultList();
+      if (rows.isEmpty()) {
+         return null;
+      }
+      Object[] row = rows.get(0);
+      PayloadEntity payload = PayloadEntity.builder()
+            .cacheControl((String) row[7])
+            .contentType((String) row[8])
+            .contentLength((Long) row[9])
+            .contentMD5((byte[]) row[10])
+            .contentDisposition((String) row[11])
+            .contentLanguage((String) row[12])
+            .contentEncoding((String) row[13])
+            .expires((Date) row[14])
+            .build();
+      payload.setId((Long) row[15]);
+      Map<String, String> userMetadata = Maps.newHashMap();
+      for (Object[] entry : entityManager.get().createQuery("SELECT KEY(m), VALUE(m) FROM " + entityClass.getName()
+            + " b JOIN b.userMetadata m WHERE b.containerEntity.name = :containerName AND b.key = :key", Object[].class)
+            .setParameter("containerName", containerName)
+            .setParameter("key", key)
+            .getResultList()) {
+         userMetadata.put((String) entry[0], (String) entry[1]);
+      }
+      BlobEntity blobEntity = BlobEntity.builder(ContainerEntity.builder().name(containerName).build(), key)
+            .etag((String) row[0])
+            .size((Long) row[1])
+            .tier((Tier) row[2])
+            .blobAccess((BlobAccess) row[3])
+            .directory((Boolean) row[6])
+            .payload(payload)
+            .userMetadata(userMetadata)
+            .build();
+      blobEntity.setCreationDate((Date) row[4]);
+      blobEntity.setLastModified((Date) row[5]);
+      return blobEntity;
+   }
+
+   /**
+    * Lists the keys of a container in key order without loading the blobs. The prefix is matched with an escaped
+    * LIKE pattern. Paging is keyset based, the next page starts after the last key of the previous one.
+    *
+    * @param prefix only keys starting with the prefix are listed, null lists all the keys
+    * @param marker only keys after the marker are listed, null starts from the first key
+    * @param limit the maximum number of keys
+    */
+   public List<String> findKeys(ContainerEntity containerEntity, @Nullable String prefix, @Nullable String marker, int limit) {
+      TypedQuery<String> query = entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity"
+            + (prefix != null ? " AND b.key LIKE :prefix ESCAPE '" + KeyPrefixes.LIKE_ESCAPE + "'" : "")
+            + (marker != null ? " AND b.key > :marker" : "")
+            + " ORDER BY b.key", String.class)
             .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
+            .setMaxResults(limit);
+      if (prefix != null) {
+         query.setParameter("prefix", KeyPrefixes.likePattern(prefix));
+      }
+      if (marker != null) {
+         query.setParameter("marker", marker);
+      }
+      return query.getResultList();
+   }
+
+   public long countBlobs(ContainerEntity containerEntity, @Nullable String prefix) {
+      TypedQuery<Long> query = entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity"
+            + (prefix != null ? " AND b.key LIKE :prefix ESCAPE '" + KeyPrefixes.LIKE_ESCAPE + "'" : ""), Long.class)
+            .setParameter("containerEntity", containerEntity);
+      if (prefix != null) {
+         query.setParameter("prefix", KeyPrefixes.likePattern(prefix));
+      }
+      return query.getSingleResult();
+   }
+
+   public List<Long> findPayloadIds(BlobSelection selection) {
+      return selection.bindJpql(entityManager.get().createQuery("SELECT b.payload.id FROM " + entityClass.getName() + " b "
+            + "WHERE " + selection.jpql("b"), Long.class))
+            .getResultList();
+   }
+
+   public int deleteUserMetadata(BlobSelection selection) {
+      return selection.bindSql(entityManager.get().createNativeQuery("DELETE FROM BlobUserMetadata WHERE container_id = ?1 "
+            + "AND blob_key IN (SELECT b.blob_key FROM BlobEntity b WHERE " + selection.sql("b") + ")"))
+            .executeUpdate();
+   }
+
+   /**
+    * Deletes the selected blobs, their user metadata must have been deleted before.
+    */
+   public int deleteBlobs(BlobSelection selection) {
+      return selection.bindJpql(entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " b "
+            + "WHERE " + selection.jpql("b")))
+            .executeUpdate();
+   }
+
+   private <T> T findAttribute(String containerName, String key, String path, Class<T> type) {
+      List<T> result = entityManager.get().createQuery("SELECT " + path + " FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.name = :containerName AND b.key = :key", type)
+            .setParameter("containerName", containerName)
+            .setParameter("key", key)
             .getResultList();
+      return result.isEmpty() ? null : result.get(0);
    }
 
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.common.collect.Lists;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.util.KeyPrefixes;
+
+import javax.persistence.Query;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The blobs of a container, optionally only the ones inside a directory, that a set-based operation applies to.
+ * The selection is rendered as a JPQL condition for the entity queries and as an SQL condition for the statements
+ * on the element collection tables.
+ */
+public final class BlobSelection {
+
+   private final ContainerEntity containerEntity;
+   private final String prefixPattern;
+   private final boolean filesOnly;
+
+   private BlobSelection(ContainerEntity containerEntity, @Nullable String prefix, boolean filesOnly) {
+      this.containerEntity = checkNotNull(containerEntity, "containerEntity");
+      this.prefixPattern = prefix == null ? null : KeyPrefixes.likePattern(prefix);
+      this.filesOnly = filesOnly;
+   }
+
+   /**
+    * Selects all the blobs of a container
+    */
+   public static BlobSelection container(ContainerEntity containerEntity) {
+      return new BlobSelection(containerEntity, null, false);
+   }
+
+   /**
+    * Selects the blobs inside a directory and its subdirectories, not including the directory itself. The keys are
+    * selected with an escaped LIKE on the directory prefix.
+    *
+    * @param filesOnly whether the directory blobs are left out of the selection
+    */
+   public static BlobSelection directory(ContainerEntity containerEntity, String directory, boolean filesOnly) {
+      return new BlobSelection(containerEntity, KeyPrefixes.directoryPrefix(checkNotNull(directory, "directory")),
+            filesOnly);
+   }
+
+   public ContainerEntity getContainerEntity() {
+      return containerEntity;
+   }
+
+   /**
+    * @param alias the alias of the BlobEntity in the query
+    * @return the JPQL condition, bound with {@link #bindJpql(Query)}
+    */
+   String jpql(String alias) {
+      StringBuilder condition = new StringBuilder(alias).append(".containerEntity = :containerEntity");
+      if (prefixPattern != null) {
+         condition.append(" AND ").append(alias).append(".key LIKE :prefix ESCAPE '").append(KeyPrefixes.LIKE_ESCAPE)
+               .append('\'');
+      }
+      if (filesOnly) {
+         condition.append(" AND ").append(alias).append(".directory = false");
+      }
+      return condition.toString();
+   }
+
+   <Q extends Query> Q bindJpql(Q query) {
+      query.setParameter("containerEntity", containerEntity);
+      if (prefixPattern != null) {
+         query.setParameter("prefix", prefixPattern);
+      }
+      return query;
+   }
+
+   /**
+    * The condition only refers to the columns whose names are pinned on {@link org.jclouds.jdbc.entity.BlobEntity}.
+    *
+    * @param alias the alias of the BlobEntity table in the statement
+    * @return the SQL condition, using positional parameters bound with {@link #bindSql(Query)}
+    */
+   String sql(String alias) {
+      StringBuilder condition = new StringBuilder(alias).append(".id = ?1");
+      int position = 2;
+      if (prefixPattern != null) {
+         condition.append(" AND ").append(alias).append(".blob_key LIKE ?").append(position++).append(" ESCAPE '")
+               .append(KeyPrefixes.LIKE_ESCAPE).append('\'');
+      }
+      if (filesOnly) {
+         condition.append(" AND ").append(alias).append(".directory = ?").append(position);
+      }
+      return condition.toString();
+   }
+
+   Query bindSql(Query query) {
+      List<Object> parameters = Lists.newArrayList();
+      parameters.add(containerEntity.getId());
+      if (prefixPattern != null) {
+         parameters.add(prefixPattern);
+      }
+      if (filesOnly) {
+         parameters.add(Boolean.FALSE);
+      }
+      for (int i = 0; i < parameters.size(); i++) {
+         query.setParameter(i + 1, parameters.get(i));
+      }
+      return query;
+   }
+
+}
@@ -16,19 +16,180 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.jdbc.domain.ChunkStatistics;
+import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.TemporalType;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
 
+   /**
+    * Maximum number of ids bound to a single IN clause
+    */
+   private static final int MAX_IDS_PER_QUERY = 500;
+
    @Inject
    private ChunkRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   public List<ChunkEntity> findChunksByIds(Collection<Long> ids) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c WHERE c.id IN :ids", entityClass)
+            .setParameter("ids", ids)
+            .getResultList();
+   }
+
+   /**
+    * The lookup does not flush the pending chunk inserts, chunks persisted in the current transaction that were not
+    * flushed yet are not found.
+    *
+    * @return the id of a chunk with the given hash, or null if there is none
+    */
+   public Long findChunkIdByHash(String hash) {
+      List<Long> ids = entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c WHERE c.hash = :hash", Long.class)
+            .setParameter("hash", hash)
+            .setFlushMode(FlushModeType.COMMIT)
+            .setMaxResults(1)
+            .getResultList();
+      return ids.isEmpty() ? null : ids.get(0);
+   }
+
+   /**
+    * Adds a reference to a chunk, which may be an unreferenced chunk of an overwritten blob that was not reaped yet.
+    * The update locks the chunk row, so a concurrent release or reaper either completes first and the chunk is not
+    * found anymore, or runs after the reference was added and keeps the chunk.
+    *
+    * @return false if the chunk was deleted since it was looked up, a new chunk has to be stored then
+    */
+   public boolean addReference(Long id) {
+      return entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount + 1, "
+            + "c.lastReferenced = :now WHERE c.id = :id")
+            .setParameter("now", new Date())
+            .setParameter("id", id)
+            .executeUpdate() > 0;
+   }
+
+   /**
+    * Adds one reference per occurrence of each chunk in the chunk list of a payload, with a single statement.
+    */
+   public void addReferences(Long payloadId) {
+      entityManager.get().createNativeQuery("UPDATE ChunkEntity SET refCount = refCount + "
+            + "(SELECT COUNT(*) FROM PayloadChunks pc WHERE pc.payload_id = ?1 AND pc.chunk_id = ChunkEntity.id) "
+            + "WHERE id IN (SELECT pc.chunk_id FROM PayloadChunks pc WHERE pc.payload_id = ?2)")
+            .setParameter(1, payloadId)
+            .setParameter(2, payloadId)
+            .executeUpdate();
+   }
+
+   /**
+    * Drops one reference per occurrence of each id and deletes the chunks that are not referenced anymore.
+    */
+   public void releaseChunks(Collection<Long> ids) {
+      Multiset<Long> references = dropReferences(ids);
+      for (List<Long> partition : Iterables.partition(references.elementSet(), MAX_IDS_PER_QUERY)) {
+         entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c WHERE c.id IN :ids AND c.refCount <= 0")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+   }
+
+   /**
+    * Drops one reference per occurrence of each id without deleting any chunk. The chunks count as referenced now,
+    * those that are not in any chunk list anymore are deleted by {@link #deleteOrphans(Date)} once they are older
+    * than its date.
+    *
+    * @return the dropped references
+    */
+   public Multiset<Long> dropReferences(Collection<Long> ids) {
+      Multiset<Long> references = HashMultiset.create(ids);
+      Multimap<Integer, Long> idsByCount = LinkedHashMultimap.create();
+      for (Multiset.Entry<Long> entry : references.entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      Date now = new Date();
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> partition : Iterables.partition(entry.getValue(), MAX_IDS_PER_QUERY)) {
+            entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount - :count, "
+                  + "c.lastReferenced = :now WHERE c.id IN :ids")
+                  .setParameter("count", (long) entry.getKey())
+                  .setParameter("now", now)
+                  .setParameter("ids", partition)
+                  .executeUpdate();
+         }
+      }
+      return references;
+   }
+
+   /**
+    * Drops the references of the payloads of the selected blobs to their chunks and deletes the chunks that are not
+    * referenced anymore. This must run before the chunk lists of the payloads are deleted. JPQL cannot set a column
+    * from a correlated subquery portably, the references are dropped with native SQL.
+    */
+   public void releaseChunks(BlobSelection selection) {
+      String referencedChunks = "FROM PayloadChunks pc JOIN BlobEntity b ON b.payload_id = pc.payload_id WHERE "
+            + selection.sql("b");
+      selection.bindSql(entityManager.get().createNativeQuery("UPDATE ChunkEntity SET refCount = refCount - "
+            + "(SELECT COUNT(*) " + referencedChunks + " AND pc.chunk_id = ChunkEntity.id) "
+            + "WHERE id IN (SELECT pc.chunk_id " + referencedChunks + ")"))
+            .executeUpdate();
+      selection.bindJpql(entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c "
+            + "WHERE c.refCount <= 0 AND c.id IN (SELECT pc FROM " + BlobEntity.class.getName() + " b "
+            + "JOIN b.payload p JOIN p.chunks pc WHERE " + selection.jpql("b") + ")"))
+            .executeUpdate();
+   }
+
+   /**
+    * Deletes the chunks that are in no chunk list and were not referenced since the given date. Those are left
+    * behind by writes that stored their chunks but failed before the blob was written, and by overwritten blobs.
+    *
+    * @return the number of deleted chunks
+    */
+   public int deleteOrphans(Date lastReferencedBefore) {
+      return entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c "
+            + "WHERE c.lastReferenced < :date "
+            + "AND NOT EXISTS (SELECT p FROM " + PayloadEntity.class.getName() + " p JOIN p.chunks pc WHERE pc = c.id) "
+            + "AND NOT EXISTS (SELECT m FROM " + MultipartPartEntity.class.getName() + " m JOIN m.chunks mc "
+            + "WHERE mc = c.id)")
+            .setParameter("date", lastReferencedBefore, TemporalType.TIMESTAMP)
+            .executeUpdate();
+   }
+
+   /**
+    * @return the segment files referenced by chunks
+    */
+   public List<Integer> findSegments() {
+      return entityManager.get().createQuery("SELECT DISTINCT c.segment FROM " + entityClass.getName()
+            + " c WHERE c.segment IS NOT NULL", Integer.class)
+            .getResultList();
+   }
+
+   public ChunkStatistics getStatistics() {
+      Object[] result = entityManager.get().createQuery("SELECT COUNT(c), SUM(c.refCount), SUM(c.size), SUM(c.size * c.refCount) FROM "
+            + entityClass.getName() + " c", Object[].class)
+            .getSingleResult();
+      return new ChunkStatistics(toLong(result[0]), toLong(result[1]), toLong(result[2]), toLong(result[3]));
+   }
+
+   private static long toLong(Object value) {
+      return value == null ? 0 : ((Number) value).longValue();
+   }
+
 }
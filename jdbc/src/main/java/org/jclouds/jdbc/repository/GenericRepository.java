@@ -42,6 +42,13 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       return entityManager.get().find(entityClass, id);
    }
 
+   /**
+    * @return a reference to the entity that can be set on other entities, its state may be loaded lazily
+    */
+   public T getReference(PK id) {
+      return entityManager.get().getReference(entityClass, id);
+   }
+
    public T save(T entity) {
       return entityManager.get().merge(entity);
    }
@@ -50,4 +57,12 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       entityManager.get().remove(entity);
    }
 
+   public void flush() {
+      entityManager.get().flush();
+   }
+
+   public void detach(T entity) {
+      entityManager.get().detach(entity);
+   }
+
 }
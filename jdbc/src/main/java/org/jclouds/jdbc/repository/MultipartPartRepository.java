@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Singleton
+public class MultipartPartRepository extends GenericRepository<MultipartPartEntity, Long> {
+
+   @Inject
+   private MultipartPartRepository(Provider<EntityManager> entityManager) {
+      super(entityManager);
+   }
+
+   /**
+    * @return the parts of the upload ordered by part number, without their chunk lists
+    */
+   public List<MultipartPartEntity> findParts(MultipartUploadEntity upload) {
+      return entityManager.get().createQuery("SELECT p FROM " + entityClass.getName() + " p "
+            + "WHERE p.upload = :upload ORDER BY p.partNumber", entityClass)
+            .setParameter("upload", upload)
+            .getResultList();
+   }
+
+   /**
+    * @return the part with the given number, or null if it was not uploaded
+    */
+   public MultipartPartEntity findPart(MultipartUploadEntity upload, int partNumber) {
+      List<MultipartPartEntity> parts = entityManager.get().createQuery("SELECT p FROM " + entityClass.getName() + " p "
+            + "WHERE p.upload = :upload AND p.partNumber = :partNumber", entityClass)
+            .setParameter("upload", upload)
+            .setParameter("partNumber", partNumber)
+            .getResultList();
+      return parts.isEmpty() ? null : parts.get(0);
+   }
+
+   /**
+    * @return the chunk ids of the part in order
+    */
+   public List<Long> findChunkIds(MultipartPartEntity part) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p JOIN p.chunks c "
+            + "WHERE p.id = :id ORDER BY INDEX(c)", Long.class)
+            .setParameter("id", part.getId())
+            .getResultList();
+   }
+
+   /**
+    * @return the chunk ids of all the parts of the upload, in no particular order
+    */
+   public List<Long> findChunkIds(MultipartUploadEntity upload) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p JOIN p.chunks c "
+            + "WHERE p.upload = :upload", Long.class)
+            .setParameter("upload", upload)
+            .getResultList();
+   }
+
+   /**
+    * Deletes the parts of an upload together with their chunk lists. The chunks themselves are left untouched.
+    */
+   public void deleteParts(MultipartUploadEntity upload) {
+      entityManager.get().createNativeQuery("DELETE FROM MultipartPartChunks WHERE part_id IN "
+            + "(SELECT p.id FROM MultipartPartEntity p WHERE p.upload_id = ?1)")
+            .setParameter(1, upload.getId())
+            .executeUpdate();
+      entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " p WHERE p.upload = :upload")
+            .setParameter("upload", upload)
+            .executeUpdate();
+   }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.common.collect.Iterables;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TemporalType;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Singleton
+public class PayloadRepository extends GenericRepository<PayloadEntity, Long> {
+
+   /**
+    * Maximum number of ids bound to a single IN clause
+    */
+   private static final int MAX_IDS_PER_QUERY = 500;
+
+   @Inject
+   private PayloadRepository(Provider<EntityManager> entityManager) {
+      super(entityManager);
+   }
+
+   /**
+    * Loads the chunk list of a payload without loading the payload
+    *
+    * @return the chunk ids in order, empty if the payload does not exist
+    */
+   public List<Long> findChunkIds(Long payloadId) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p JOIN p.chunks c "
+            + "WHERE p.id = :id ORDER BY INDEX(c)", Long.class)
+            .setParameter("id", payloadId)
+            .getResultList();
+   }
+
+   /**
+    * Sums the sizes of the chunks of a payload, for the payloads stored without a content length
+    *
+    * @return the decoded size of the payload, 0 if the payload has no chunks or does not exist
+    */
+   public long findChunkedSize(Long payloadId) {
+      Long size = entityManager.get().createQuery("SELECT SUM(c.size) FROM " + entityClass.getName()
+            + " p JOIN p.chunks pc, " + ChunkEntity.class.getName() + " c WHERE p.id = :id AND c.id = pc", Long.class)
+            .setParameter("id", payloadId)
+            .getSingleResult();
+      return size != null ? size : 0L;
+   }
+
+   /**
+    * Appends the chunk list of a multipart part to the chunk list of a payload with a single statement, the chunk ids
+    * are never loaded.
+    *
+    * @param offset the number of chunks already in the chunk list of the payload
+    * @return the number of chunks appended
+    */
+   public int appendChunks(Long payloadId, Long partId, int offset) {
+      return entityManager.get().createNativeQuery("INSERT INTO PayloadChunks (payload_id, chunk_id, chunk_index) "
+            + "SELECT ?1, pc.chunk_id, pc.chunk_index + ?2 FROM MultipartPartChunks pc WHERE pc.part_id = ?3")
+            .setParameter(1, payloadId)
+            .setParameter(2, offset)
+            .setParameter(3, partId)
+            .executeUpdate();
+   }
+
+   /**
+    * Copies the chunk list of a payload to an empty payload with a single statement, the chunks are shared and not
+    * copied.
+    */
+   public int copyChunks(Long fromPayloadId, Long toPayloadId) {
+      return entityManager.get().createNativeQuery("INSERT INTO PayloadChunks (payload_id, chunk_id, chunk_index) "
+            + "SELECT ?1, pc.chunk_id, pc.chunk_index FROM PayloadChunks pc WHERE pc.payload_id = ?2")
+            .setParameter(1, toPayloadId)
+            .setParameter(2, fromPayloadId)
+            .executeUpdate();
+   }
+
+   /**
+    * Deletes the chunk lists of the payloads of the selected blobs. The chunks themselves are left untouched.
+    */
+   public int deleteChunkLists(BlobSelection selection) {
+      return selection.bindSql(entityManager.get().createNativeQuery("DELETE FROM PayloadChunks WHERE payload_id IN "
+            + "(SELECT b.payload_id FROM BlobEntity b WHERE " + selection.sql("b") + ")"))
+            .executeUpdate();
+   }
+
+   /**
+    * Deletes the payloads replaced by a blob overwrite together with their chunk lists, once none of their chunks was
+    * referenced since the given date. They are kept until then so that the streams of the replaced blob can still
+    * load the chunk list. The chunks themselves are left untouched.
+    *
+    * @return the number of deleted payloads
+    */
+   public int deleteOrphans(Date lastReferencedBefore) {
+      List<PayloadEntity> orphans = entityManager.get().createQuery("SELECT p FROM " + entityClass.getName() + " p "
+            + "WHERE NOT EXISTS (SELECT b FROM " + BlobEntity.class.getName() + " b WHERE b.payload = p) "
+            + "AND NOT EXISTS (SELECT u FROM " + MultipartUploadEntity.class.getName() + " u WHERE u.payload = p) "
+            + "AND NOT EXISTS (SELECT c FROM " + entityClass.getName() + " q JOIN q.chunks qc, "
+            + ChunkEntity.class.getName() + " c WHERE q = p AND c.id = qc AND c.lastReferenced >= :date)", entityClass)
+            .setParameter("date", lastReferencedBefore, TemporalType.TIMESTAMP)
+            .getResultList();
+      for (PayloadEntity orphan : orphans) {
+         delete(orphan);
+      }
+      return orphans.size();
+   }
+
+   /**
+    * Deletes payloads whose chunk lists were already deleted and that are not referenced by any blob.
+    */
+   public void deletePayloads(Collection<Long> ids) {
+      for (List<Long> partition : Iterables.partition(ids, MAX_IDS_PER_QUERY)) {
+         entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " p WHERE p.id IN :ids")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+   }
+
+}
@@ -16,36 +16,79 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
-import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.FileBackedOutputStream;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.codec.ChunkCodec;
+import org.jclouds.jdbc.codec.ChunkCodecs;
 import org.jclouds.jdbc.conversion.BlobToBlobEntity;
+import org.jclouds.jdbc.domain.ChunkStatistics;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.metrics.JdbcMetrics;
 import org.jclouds.jdbc.repository.BlobRepository;
+import org.jclouds.jdbc.repository.BlobSelection;
 import org.jclouds.jdbc.repository.ChunkRepository;
 import org.jclouds.jdbc.repository.ContainerRepository;
+import org.jclouds.jdbc.repository.MultipartPartRepository;
+import org.jclouds.jdbc.repository.MultipartUploadRepository;
+import org.jclouds.jdbc.repository.PayloadRepository;
+import org.jclouds.jdbc.store.ChunkStore;
+import org.jclouds.jdbc.util.JdbcByteSource;
 import org.jclouds.util.Closeables2;
 
+import javax.inject.Named;
+import javax.persistence.PersistenceException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.BaseEncoding.base16;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_BATCH_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CHUNK_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_COMPRESSION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_CONTAINER_CACHE_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_DEDUPLICATION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_WRITE_RETRIES;
 
 @Singleton
 public class JdbcService {
@@ -55,44 +98,130 @@ public class JdbcService {
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
+   private final PayloadRepository payloadRepository;
+   private final ChunkStore chunkStore;
+   private final JdbcMetrics metrics;
+   private final MultipartUploadRepository uploadRepository;
+   private final MultipartPartRepository partRepository;
    private final BlobToBlobEntity blobToBlobEntity;
+   private final int batchSize;
+   private final boolean deduplication;
+   private final int chunkSize;
+   private final int writeRetries;
+   private final ChunkCodec codec;
+   private final BlockingQueue<byte[]> chunkBuffers;
+   private final Cache<String, ContainerEntity> containers;
 
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
-         BlobToBlobEntity blobToBlobEntity) {
+         PayloadRepository payloadRepository, ChunkStore chunkStore, JdbcMetrics metrics,
+         MultipartUploadRepository uploadRepository, MultipartPartRepository partRepository,
+         BlobToBlobEntity blobToBlobEntity, @Named(PROPERTY_JDBC_BATCH_SIZE) int batchSize,
+         @Named(PROPERTY_JDBC_DEDUPLICATION) boolean deduplication,
+         @Named(PROPERTY_JDBC_CONTAINER_CACHE_SIZE) long containerCacheSize,
+         @Named(PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY) long containerCacheExpiry,
+         @Named(PROPERTY_JDBC_CHUNK_SIZE) int chunkSize, @Named(PROPERTY_JDBC_COMPRESSION) String compression,
+         @Named(PROPERTY_JDBC_WRITE_RETRIES) int writeRetries) {
+      checkArgument(batchSize > 0, "%s must be positive", PROPERTY_JDBC_BATCH_SIZE);
+      checkArgument(writeRetries >= 0, "%s must not be negative", PROPERTY_JDBC_WRITE_RETRIES);
+      checkArgument(containerCacheExpiry >= 0, "%s must not be negative", PROPERTY_JDBC_CONTAINER_CACHE_EXPIRY);
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE, "%s must be between 1 and %s",
+            PROPERTY_JDBC_CHUNK_SIZE, JdbcConstants.MAX_CHUNK_SIZE);
       this.containerRepository = containerRepository;
       this.blobRepository = blobRepository;
       this.chunkRepository = chunkRepository;
+      this.payloadRepository = payloadRepository;
+      this.chunkStore = chunkStore;
+      this.metrics = metrics;
+      this.uploadRepository = uploadRepository;
+      this.partRepository = partRepository;
       this.blobToBlobEntity = blobToBlobEntity;
+      this.batchSize = batchSize;
+      this.deduplication = deduplication;
+      this.chunkSize = chunkSize;
+      this.writeRetries = writeRetries;
+      this.codec = ChunkCodecs.forName(compression);
+      this.chunkBuffers = new LinkedBlockingQueue<byte[]>(batchSize);
+      this.containers = CacheBuilder.newBuilder().maximumSize(containerCacheSize)
+            .expireAfterWrite(containerCacheExpiry, TimeUnit.SECONDS).recordStats().build();
    }
 
-   @Transactional
+   /**
+    * Container changes are written in their own transaction and the container is evicted from the cache both before
+    * and after it commits, a lookup running concurrently with the transaction may have cached the old state. These
+    * methods must not be called from within a transaction.
+    */
    public void createContainer(String containerName, ContainerAccess access) {
-      containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
+      containers.invalidate(containerName);
+      try {
+         insertContainer(containerName, access);
+      } finally {
+         containers.invalidate(containerName);
+      }
    }
 
-   @Transactional
    public void createContainer(String containerName) {
       createContainer(containerName, null);
    }
 
+   @Transactional
+   void insertContainer(String containerName, ContainerAccess access) {
+      containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
+   }
+
    @Transactional
    public List<ContainerEntity> findAllContainers() {
       return containerRepository.findAllContainers();
    }
 
+   /**
+    * @return a detached copy of the container, or null if it does not exist
+    */
    @Transactional
    public ContainerEntity findContainerByName(String containerName) {
-      return containerRepository.findContainerByName(containerName);
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      return containerEntity == null ? null : copyOf(containerEntity);
    }
 
-   @Transactional
+   public CacheStats getContainerCacheStats() {
+      return containers.stats();
+   }
+
+   /**
+    * Deletes a container together with all its blobs and multipart uploads
+    */
    public void deleteContainerByName(String containerName) {
-      containerRepository.deleteContainerByName(containerName);
+      containers.invalidate(containerName);
+      try {
+         deleteContainer(containerName);
+      } finally {
+         containers.invalidate(containerName);
+      }
    }
 
    @Transactional
+   void deleteContainer(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity != null) {
+         for (MultipartUploadEntity upload : uploadRepository.findUploadsByContainer(containerEntity)) {
+            abortMultipartUpload(upload);
+         }
+         deleteBlobs(BlobSelection.container(containerEntity));
+         containerRepository.delete(containerEntity);
+      }
+   }
+
    public void setContainerAccessByName(String containerName, ContainerAccess access) {
+      containers.invalidate(containerName);
+      try {
+         updateContainerAccess(containerName, access);
+      } finally {
+         containers.invalidate(containerName);
+      }
+   }
+
+   @Transactional
+   void updateContainerAccess(String containerName, ContainerAccess access) {
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
       containerEntity.setContainerAccess(access);
       containerRepository.save(containerEntity);
@@ -100,44 +229,116 @@ public class JdbcService {
 
    @Transactional
    public boolean blobExists(String containerName, String key) {
-      return findBlobById(containerName, key) != null;
+      return blobRepository.exists(containerName, key);
    }
 
-   @Transactional(rollbackOn = IOException.class)
+   @Transactional
+   public BlobAccess findBlobAccess(String containerName, String key) {
+      return blobRepository.findBlobAccess(containerName, key);
+   }
+
+   @Transactional
+   public String findContentType(String containerName, String key) {
+      return blobRepository.findContentType(containerName, key);
+   }
+
+   /**
+    * @return a detached blob holding only the metadata of the blob, or null if it does not exist
+    */
+   @Transactional
+   public BlobEntity findBlobMetadata(String containerName, String key) {
+      return blobRepository.findBlobMetadata(containerName, key);
+   }
+
+   /**
+    * Stores a blob. The data is stored in its own transaction, then the blob is written in a short transaction that
+    * only holds a lock on the blob row. A concurrent writer of the same key makes the write fail on the blob version
+    * or primary key, in which case the write is retried up to {@code writeRetries} times against the new state of
+    * the blob. When the blob cannot be written the stored chunks are released.
+    */
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
-      List<Long> chunks;
-      HashingInputStream his = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
+      StoredPayload data = storePayloadWithRetries(blob.getPayload());
+      boolean written = false;
       try {
-         chunks = storeData(his);
+         for (int attempt = 0; ; attempt++) {
+            try {
+               BlobEntity blobEntity = writeBlob(containerName, blob, blobAccess, data);
+               written = true;
+               return blobEntity;
+            } catch (PersistenceException e) {
+               if (attempt >= writeRetries) {
+                  throw e;
+               }
+               metrics.increment(JdbcMetrics.WRITE_RETRIES, 1);
+            }
+         }
       } finally {
-         Closeables2.closeQuietly(his);
-      }
-      HashCode actualHashCode = his.hash();
-      HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
-      if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
-         throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
-               " expected: " + expectedHashCode);
+         if (!written) {
+            deleteChunks(data.chunks);
+         }
       }
+   }
 
-      String key = blob.getMetadata().getName();
-      Date creationDate = null;
-      BlobEntity oldBlobEntity = findBlobById(containerName, key);
-      if (oldBlobEntity != null) {
-         creationDate = oldBlobEntity.getCreationDate();
-      }
+   @Transactional
+   BlobEntity writeBlob(String containerName, Blob blob, BlobAccess blobAccess, StoredPayload data) {
       BlobEntity blobEntity = blobToBlobEntity.apply(blob);
-      blobEntity.getPayload().setChunks(chunks);
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
-      blobEntity.setKey(key);
+      blobEntity.getPayload().setChunks(data.chunks);
+      blobEntity.getPayload().setChunkSize(chunkSize);
+      blobEntity.getPayload().setCompression(codec == ChunkCodecs.NONE ? null : codec.getName());
+      blobEntity.getPayload().setContentLength(data.size);
+      blobEntity.getPayload().setContentMD5(data.md5.asBytes());
+      blobEntity.setKey(blob.getMetadata().getName());
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setTier(blob.getMetadata().getTier());
-      blobEntity.setCreationDate(creationDate);
-      blobEntity.setLastModified(new Date());
-      blobEntity.setEtag(base16().lowerCase().encode(actualHashCode.asBytes()));
-      blobEntity.getPayload().setContentMD5(actualHashCode.asBytes());
+      blobEntity.setEtag(base16().lowerCase().encode(data.md5.asBytes()));
+      blobEntity.setSize(data.size);
+      return putBlobEntity(containerName, blobEntity);
+   }
 
-      BlobEntity result = blobRepository.save(blobEntity);
-      return result;
+   /**
+    * Copies a blob without reading its data: the copy gets a new payload whose chunk list is copied from the source
+    * payload with a single statement, and the chunks gain a reference for each time the copy uses them. A blob with
+    * the destination key is replaced.
+    *
+    * @param contentMetadata replaces the content metadata of the source as a whole, the unset values are cleared as
+    *                        in {@link org.jclouds.blobstore.internal.BaseBlobStore#copyBlob}, null keeps the content
+    *                        metadata of the source
+    * @param userMetadata the user metadata of the copy, null keeps the user metadata of the source
+    * @return the copy, or null if the source blob does not exist
+    */
+   @Transactional
+   public BlobEntity copyBlob(String fromContainer, String fromKey, String toContainer, String toKey,
+         @Nullable ContentMetadata contentMetadata, @Nullable Map<String, String> userMetadata) {
+      BlobEntity source = findBlobById(fromContainer, fromKey);
+      if (source == null) {
+         return null;
+      }
+      PayloadEntity sourcePayload = source.getPayload();
+      PayloadEntity payload = PayloadEntity.builder()
+            .cacheControl(sourcePayload.getCacheControl())
+            .contentType(sourcePayload.getContentType())
+            .contentLength(sourcePayload.getContentLength())
+            .contentMD5(sourcePayload.getContentMD5())
+            .contentDisposition(sourcePayload.getContentDisposition())
+            .contentLanguage(sourcePayload.getContentLanguage())
+            .contentEncoding(sourcePayload.getContentEncoding())
+            .expires(sourcePayload.getExpires())
+            .build();
+      payload.setChunkSize(sourcePayload.getChunkSize());
+      payload.setCompression(sourcePayload.getCompression());
+      if (contentMetadata != null) {
+         replaceContentMetadata(payload, contentMetadata);
+      }
+      BlobEntity copy = new BlobEntity(null, toKey, payload, null, null, null, source.getTier(),
+            Maps.newHashMap(userMetadata != null ? userMetadata : source.getUserMetadata()), source.getSize(),
+            source.getEtag(), source.isDirectory());
+
+      payloadRepository.create(payload);
+      payloadRepository.flush();
+      payloadRepository.copyChunks(sourcePayload.getId(), payload.getId());
+      chunkRepository.addReferences(payload.getId());
+      // The source itself may be replaced, its chunks have gained the references of the copy by now
+      return putBlobEntity(toContainer, copy);
    }
 
    @Transactional
@@ -147,11 +348,10 @@ public class JdbcService {
             .directory(true)
             .payload(PayloadEntity.builder().contentType("application/directory").build())
             .build();
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
       blobEntity.setKey(blob.getMetadata().getName());
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setEtag(DIRECTORY_MD5);
-      return blobRepository.save(blobEntity);
+      return putBlobEntity(containerName, blobEntity);
    }
 
    @Transactional
@@ -159,64 +359,119 @@ public class JdbcService {
       return createDirectoryBlob(containerName, blob, null);
    }
 
-   @Transactional(rollbackOn = IOException.class)
    public BlobEntity createOrModifyBlob(String containerName, Blob blob) throws IOException {
       return createOrModifyBlob(containerName, blob, null);
    }
 
    @Transactional
    public BlobEntity findBlobById(String containerName, String key) {
-      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      ContainerEntity containerEntity = lookupContainer(containerName);
       return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
    }
 
    @Transactional
    public ChunkEntity findChunkById(Long id) {
-      return chunkRepository.find(id);
+      ChunkEntity chunk = chunkRepository.find(id);
+      countChunksRead(Collections.singletonList(chunk));
+      return chunk;
    }
 
+   /**
+    * Loads the chunk list of a payload, the chunk lists are not loaded with the blobs.
+    */
    @Transactional
-   public List<BlobEntity> findBlobsByContainer(String containerName) {
-      return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
+   public List<Long> findChunkIds(Long payloadId) {
+      return payloadRepository.findChunkIds(payloadId);
    }
 
+   /**
+    * Sums the chunk sizes of a payload, used for the blobs stored without a content length.
+    */
    @Transactional
-   public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
-      if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
-            }
+   public long findPayloadSize(Long payloadId) {
+      return payloadRepository.findChunkedSize(payloadId);
+   }
+
+   /**
+    * Loads several chunks with a single query
+    *
+    * @return the chunks in the same order as the ids, with null for the chunks that do not exist
+    */
+   @Transactional
+   public List<ChunkEntity> findChunksByIds(List<Long> ids) {
+      Map<Long, ChunkEntity> chunksById = Maps.newHashMapWithExpectedSize(ids.size());
+      List<ChunkEntity> chunks = chunkRepository.findChunksByIds(ids);
+      for (ChunkEntity chunk : chunks) {
+         chunksById.put(chunk.getId(), chunk);
+      }
+      countChunksRead(chunks);
+      List<ChunkEntity> result = Lists.newArrayListWithCapacity(ids.size());
+      for (Long id : ids) {
+         result.add(chunksById.get(id));
+      }
+      return result;
+   }
+
+   private void countChunksRead(List<ChunkEntity> chunks) {
+      long bytes = 0;
+      int found = 0;
+      for (ChunkEntity chunk : chunks) {
+         if (chunk != null) {
+            bytes += chunk.getSize();
+            found++;
          }
       }
-      return result.build();
+      metrics.increment(JdbcMetrics.CHUNK_QUERIES, 1);
+      metrics.increment(JdbcMetrics.CHUNKS_READ, found);
+      metrics.increment(JdbcMetrics.BYTES_READ, bytes);
+   }
+
+   /**
+    * Reads the encoded data of a chunk that is not kept in its row
+    */
+   public ByteBuffer readChunkData(ChunkEntity chunk) throws IOException {
+      return chunkStore.read(chunk);
+   }
+
+   @Transactional
+   public List<BlobEntity> findBlobsByContainer(String containerName) {
+      return blobRepository.findBlobsByContainer(lookupContainer(containerName));
+   }
+
+   /**
+    * @see BlobRepository#findKeys(ContainerEntity, String, String, int)
+    */
+   @Transactional
+   public List<String> findBlobKeys(String containerName, @Nullable String prefix, @Nullable String marker, int limit) {
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      return containerEntity == null ? ImmutableList.<String>of()
+            : blobRepository.findKeys(containerEntity, prefix, marker, limit);
+   }
+
+   @Transactional
+   public long countBlobs(String containerName, @Nullable String prefix) {
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      return containerEntity == null ? 0 : blobRepository.countBlobs(containerEntity, prefix);
    }
 
    @Transactional
    public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      if (containerEntity != null) {
+         deleteBlobs(BlobSelection.container(containerEntity));
       }
    }
 
+   /**
+    * Deletes the blobs inside a directory, the directory blob itself is kept.
+    *
+    * @param recursive whether the directory blobs inside the directory are deleted as well
+    */
    @Transactional
    public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
-            }
-         }
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      if (containerEntity != null) {
+         deleteBlobs(BlobSelection.directory(containerEntity, directoryName, !recursive));
       }
    }
 
@@ -236,26 +491,455 @@ public class JdbcService {
       blobRepository.save(blobEntity);
    }
 
+   /**
+    * Starts a multipart upload. The content metadata and the user metadata of the blob are kept with the upload, the
+    * content length and MD5 are dropped since they cannot be checked against the parts.
+    *
+    * @return the id of the upload
+    */
    @Transactional
-   private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
+   public String createMultipartUpload(String containerName, BlobMetadata metadata, BlobAccess blobAccess) {
+      PayloadEntity payload = blobToBlobEntity.toPayloadEntity(metadata.getContentMetadata());
+      payload.setContentLength(null);
+      payload.setContentMD5(null);
+      Map<String, String> userMetadata = metadata.getUserMetadata() == null ? Maps.<String, String>newHashMap()
+            : Maps.newHashMap(metadata.getUserMetadata());
+      MultipartUploadEntity upload = new MultipartUploadEntity(UUID.randomUUID().toString(),
+            containerReference(containerName), metadata.getName(), payload, userMetadata, blobAccess,
+            metadata.getTier());
+      return uploadRepository.create(upload).getId();
+   }
+
+   /**
+    * Stores the data of a part, replacing the part with the same number if it was already uploaded. Each part is
+    * stored in its own transaction so the parts of an upload can be uploaded concurrently.
+    */
+   @Transactional(rollbackOn = IOException.class)
+   public MultipartPartEntity storeMultipartPart(String uploadId, int partNumber, Payload payload) throws IOException {
+      MultipartUploadEntity upload = findMultipartUpload(uploadId);
+      StoredPayload data = storePayload(payload);
+      MultipartPartEntity oldPart = partRepository.findPart(upload, partNumber);
+      if (oldPart != null) {
+         deleteChunks(partRepository.findChunkIds(oldPart));
+         partRepository.delete(oldPart);
+         // The new part has the same upload and part number, the old one must be gone before it is inserted
+         partRepository.flush();
       }
+      MultipartPartEntity part = new MultipartPartEntity(upload, partNumber, data.chunks, chunkSize,
+            codec == ChunkCodecs.NONE ? null : codec.getName(), data.size, base16().lowerCase().encode(data.md5.asBytes()));
+      return partRepository.create(part);
+   }
+
+   /**
+    * @return the uploaded parts ordered by part number, empty if the upload does not exist
+    */
+   @Transactional
+   public List<MultipartPartEntity> findMultipartParts(String uploadId) {
+      MultipartUploadEntity upload = uploadRepository.find(uploadId);
+      return upload == null ? ImmutableList.<MultipartPartEntity>of() : partRepository.findParts(upload);
+   }
+
+   @Transactional
+   public List<MultipartUploadEntity> findMultipartUploads(String containerName) {
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      return containerEntity == null ? ImmutableList.<MultipartUploadEntity>of()
+            : uploadRepository.findUploadsByContainer(containerEntity);
    }
 
+   /**
+    * Completes a multipart upload without reading or writing any chunk: the chunk lists of the parts are appended to
+    * the payload of the upload, which becomes the payload of the blob. The chunks of the uploaded parts that are not
+    * listed are released.
+    *
+    * @param parts the parts of the blob in order, their ETags are checked when given
+    * @return the ETag of the blob, the MD5 of the part MD5s followed by the number of parts
+    */
+   @Transactional
+   public String completeMultipartUpload(String uploadId, List<MultipartPart> parts) {
+      checkArgument(!parts.isEmpty(), "A multipart upload needs at least one part");
+      MultipartUploadEntity upload = findMultipartUpload(uploadId);
+      Map<Integer, MultipartPartEntity> uploadedParts = Maps.newHashMap();
+      for (MultipartPartEntity part : partRepository.findParts(upload)) {
+         uploadedParts.put(part.getPartNumber(), part);
+      }
+
+      PayloadEntity payload = upload.getPayload();
+      Hasher etag = Hashing.md5().newHasher();
+      MultipartPartEntity firstPart = uploadedParts.get(parts.get(0).partNumber());
+      boolean sameChunkSize = true;
+      long size = 0;
+      int chunks = 0;
+      for (int i = 0; i < parts.size(); i++) {
+         MultipartPart part = parts.get(i);
+         MultipartPartEntity uploadedPart = uploadedParts.remove(part.partNumber());
+         checkArgument(uploadedPart != null, "Part %s was not uploaded or is listed twice", part.partNumber());
+         checkArgument(part.partETag() == null || part.partETag().equals(uploadedPart.getEtag()),
+               "Part %s has ETag %s, not %s", part.partNumber(), uploadedPart.getEtag(), part.partETag());
+         checkArgument(Objects.equal(firstPart.getCompression(), uploadedPart.getCompression()),
+               "Part %s was stored with a different codec", part.partNumber());
+         // Slices can only locate the chunks when every part but the last one fills whole chunks of the same size
+         sameChunkSize = sameChunkSize && uploadedPart.getChunkSize() == firstPart.getChunkSize()
+               && (i == parts.size() - 1 || uploadedPart.getSize() % uploadedPart.getChunkSize() == 0);
+         chunks += payloadRepository.appendChunks(payload.getId(), uploadedPart.getId(), chunks);
+         etag.putBytes(base16().lowerCase().decode(uploadedPart.getEtag()));
+         size += uploadedPart.getSize();
+      }
+      for (MultipartPartEntity unusedPart : uploadedParts.values()) {
+         deleteChunks(partRepository.findChunkIds(unusedPart));
+      }
+      partRepository.deleteParts(upload);
+
+      payload.setChunkSize(sameChunkSize ? firstPart.getChunkSize() : JdbcByteSource.VARIABLE_CHUNK_SIZE);
+      payload.setCompression(firstPart.getCompression());
+      payload.setContentLength(size);
+      String blobEtag = etag.hash().toString() + "-" + parts.size();
+
+      BlobEntity blobEntity = new BlobEntity(null, upload.getKey(), payload, null, null, upload.getBlobAccess(),
+            upload.getTier(), Maps.newHashMap(upload.getUserMetadata()), size, blobEtag, false);
+      uploadRepository.delete(upload);
+      putBlobEntity(upload.getContainerEntity().getName(), blobEntity);
+      return blobEtag;
+   }
+
+   /**
+    * Aborts a multipart upload and releases the chunks of its parts, unknown uploads are ignored
+    */
+   @Transactional
+   public void abortMultipartUpload(String uploadId) {
+      MultipartUploadEntity upload = uploadRepository.find(uploadId);
+      if (upload != null) {
+         abortMultipartUpload(upload);
+      }
+   }
+
+   /**
+    * Deletes the payloads replaced by blob overwrites, then the chunks that are not in any chunk list anymore
+    *
+    * @see PayloadRepository#deleteOrphans(Date)
+    * @see ChunkRepository#deleteOrphans(Date)
+    */
+   @Transactional
+   public int deleteOrphanChunks(Date lastReferencedBefore) {
+      payloadRepository.deleteOrphans(lastReferencedBefore);
+      payloadRepository.flush();
+      int deleted = chunkRepository.deleteOrphans(lastReferencedBefore);
+      metrics.increment(JdbcMetrics.ORPHAN_CHUNKS_DELETED, deleted);
+      return deleted;
+   }
+
+   /**
+    * @see ChunkStore#reclaim(java.util.Collection, Date)
+    */
+   @Transactional
+   public int reclaimChunkSegments(Date modifiedBefore) {
+      return chunkStore.reclaim(chunkRepository.findSegments(), modifiedBefore);
+   }
+
+   @Transactional
+   public ChunkStatistics getChunkStatistics() {
+      return chunkRepository.getStatistics();
+   }
+
+   /**
+    * Looks the container up by name, going to the database only on a cache miss. The cached entity is detached and
+    * shared: it can be read and used as a query parameter but must not be modified or handed out.
+    *
+    * @return the cached container, or null if it does not exist
+    */
+   private ContainerEntity lookupContainer(String containerName) {
+      metrics.increment(JdbcMetrics.CONTAINER_LOOKUPS, 1);
+      ContainerEntity containerEntity = containers.getIfPresent(containerName);
+      if (containerEntity == null) {
+         metrics.increment(JdbcMetrics.CONTAINER_QUERIES, 1);
+         containerEntity = containerRepository.findContainerByName(containerName);
+         if (containerEntity == null) {
+            return null;
+         }
+         containerEntity = copyOf(containerEntity);
+         containers.put(containerName, containerEntity);
+      }
+      return containerEntity;
+   }
+
+   /**
+    * @return a reference to the container that other entities can point to, without loading the container
+    */
+   private ContainerEntity containerReference(String containerName) {
+      ContainerEntity containerEntity = lookupContainer(containerName);
+      checkArgument(containerEntity != null, "Container %s does not exist", containerName);
+      return containerRepository.getReference(containerEntity.getId());
+   }
+
+   private static ContainerEntity copyOf(ContainerEntity containerEntity) {
+      return new ContainerEntity(containerEntity.getId(), containerEntity.getName(), containerEntity.getCreationDate(),
+            containerEntity.getContainerAccess());
+   }
+
+   /**
+    * Inserts a blob, or replaces the blob with the same key in place. The replaced blob is flushed first so that a
+    * concurrent writer fails on the blob version before any chunk is released, then the references of the replaced
+    * payload to its chunks are dropped. The replaced payload and its chunks are left to the orphan reaper, the streams
+    * of the replaced blob, opened already or not, keep finding them until the grace period is over.
+    */
+   private BlobEntity putBlobEntity(String containerName, BlobEntity blobEntity) {
+      BlobEntity oldBlobEntity = findBlobById(containerName, blobEntity.getKey());
+      if (oldBlobEntity == null) {
+         blobEntity.setContainerEntity(containerReference(containerName));
+         blobRepository.create(blobEntity);
+         blobRepository.flush();
+         return blobEntity;
+      }
+      PayloadEntity oldPayload = oldBlobEntity.getPayload();
+      List<Long> oldChunks = payloadRepository.findChunkIds(oldPayload.getId());
+      if (blobEntity.getPayload().getId() == null) {
+         payloadRepository.create(blobEntity.getPayload());
+      }
+      oldBlobEntity.setPayload(blobEntity.getPayload());
+      oldBlobEntity.setUserMetadata(blobEntity.getUserMetadata());
+      oldBlobEntity.setLastModified(new Date());
+      oldBlobEntity.setBlobAccess(blobEntity.getBlobAccess() != null ? blobEntity.getBlobAccess() : BlobAccess.PRIVATE);
+      oldBlobEntity.setTier(blobEntity.getTier());
+      oldBlobEntity.setSize(blobEntity.getSize());
+      oldBlobEntity.setEtag(blobEntity.getEtag());
+      oldBlobEntity.setDirectory(blobEntity.isDirectory());
+      blobRepository.flush();
+      chunkRepository.dropReferences(oldChunks);
+      return oldBlobEntity;
+   }
+
+   /**
+    * Deletes the selected blobs with a fixed number of statements: chunk references are released and the unreferenced
+    * chunks deleted, then the element collections, the blobs and finally their payloads.
+    */
+   @Transactional
+   private void deleteBlobs(BlobSelection selection) {
+      chunkRepository.releaseChunks(selection);
+      payloadRepository.deleteChunkLists(selection);
+      blobRepository.deleteUserMetadata(selection);
+      List<Long> payloadIds = blobRepository.findPayloadIds(selection);
+      blobRepository.deleteBlobs(selection);
+      payloadRepository.deletePayloads(payloadIds);
+   }
+
+   /**
+    * Replaces the content metadata of a payload, the content length and MD5 describe the data and are kept
+    */
+   private static void replaceContentMetadata(PayloadEntity payload, ContentMetadata contentMetadata) {
+      payload.setCacheControl(contentMetadata.getCacheControl());
+      payload.setContentDisposition(contentMetadata.getContentDisposition());
+      payload.setContentEncoding(contentMetadata.getContentEncoding());
+      payload.setContentLanguage(contentMetadata.getContentLanguage());
+      payload.setContentType(contentMetadata.getContentType());
+      payload.setExpires(contentMetadata.getExpires());
+   }
+
+   private MultipartUploadEntity findMultipartUpload(String uploadId) {
+      MultipartUploadEntity upload = uploadRepository.find(uploadId);
+      checkArgument(upload != null, "Multipart upload %s does not exist", uploadId);
+      return upload;
+   }
+
+   @Transactional
+   private void abortMultipartUpload(MultipartUploadEntity upload) {
+      deleteChunks(partRepository.findChunkIds(upload));
+      partRepository.deleteParts(upload);
+      PayloadEntity payload = upload.getPayload();
+      uploadRepository.delete(upload);
+      payloadRepository.delete(payload);
+   }
+
+   /**
+    * Drops the references of a payload to its chunks, the chunks are deleted once nothing references them.
+    */
+   @Transactional
+   void deleteChunks(List<Long> chunkIds) {
+      chunkRepository.releaseChunks(chunkIds);
+   }
+
+   /**
+    * With deduplication two writes storing the same new chunk conflict on its hash, the one that fails is retried up
+    * to {@code writeRetries} times and references the chunk stored by the other one. Payloads that cannot be read
+    * twice are spooled first, in memory up to the chunk size and in a temporary file beyond, so they can be retried.
+    */
+   private StoredPayload storePayloadWithRetries(Payload payload) throws IOException {
+      if (!deduplication || writeRetries == 0 || payload.isRepeatable()) {
+         return retryStorePayload(payload);
+      }
+      FileBackedOutputStream spool = new FileBackedOutputStream(chunkSize, true);
+      try {
+         InputStream data = payload.openStream();
+         try {
+            ByteStreams.copy(data, spool);
+         } finally {
+            Closeables2.closeQuietly(data);
+         }
+         spool.close();
+         Payload spooled = Payloads.newByteSourcePayload(spool.asByteSource());
+         spooled.getContentMetadata().setContentMD5(payload.getContentMetadata().getContentMD5AsHashCode());
+         return retryStorePayload(spooled);
+      } finally {
+         spool.reset();
+      }
+   }
+
+   private StoredPayload retryStorePayload(Payload payload) throws IOException {
+      for (int attempt = 0; ; attempt++) {
+         try {
+            return storePayload(payload);
+         } catch (PersistenceException e) {
+            if (!deduplication || attempt >= writeRetries) {
+               throw e;
+            }
+            metrics.increment(JdbcMetrics.WRITE_RETRIES, 1);
+         }
+      }
+   }
+
+   /**
+    * Stores the data of a payload and checks it against the MD5 of the payload when there is one
+    */
+   @Transactional(rollbackOn = IOException.class)
+   StoredPayload storePayload(Payload payload) throws IOException {
+      List<Long> chunks;
+      Hasher md5 = Hashing.md5().newHasher();
+      CountingInputStream data = new CountingInputStream(payload.openStream());
+      try {
+         chunks = storeData(data, md5);
+      } finally {
+         Closeables2.closeQuietly(data);
+      }
+      chunkStore.sync();
+      metrics.increment(JdbcMetrics.BYTES_WRITTEN, data.getCount());
+      HashCode actualHashCode = md5.hash();
+      HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
+      if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
+         throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
+               " expected: " + expectedHashCode);
+      }
+      return new StoredPayload(chunks, actualHashCode, data.getCount());
+   }
+
+   /**
+    * Splits the data in chunks and stores them. Chunk buffers are taken from a bounded pool and the inserts are
+    * flushed every {@code batchSize} chunks, after which the chunks are detached so their buffers can be reused.
+    * The MD5 of the data is computed in the same pass.
+    */
    @Transactional(rollbackOn = IOException.class)
-   private List<Long> storeData(InputStream data) throws IOException {
+   private List<Long> storeData(InputStream data, Hasher md5) throws IOException {
       ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      Map<Long, ChunkEntity> pendingChunks = Maps.newHashMapWithExpectedSize(batchSize);
+      Map<String, Long> storedChunks = Maps.newHashMap();
+      List<byte[]> buffers = Lists.newArrayListWithCapacity(batchSize);
       while (true) {
-         byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-         int bytes = ByteStreams.read(data, buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+         byte[] buffer = acquireChunkBuffer();
+         buffers.add(buffer);
+         int bytes = ByteStreams.read(data, buffer, 0, buffer.length);
          if (bytes == 0) {
             break;
-         } else if (bytes != buffer.length) {
-            buffer = Arrays.copyOf(buffer, bytes);
          }
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
+         md5.putBytes(buffer, 0, bytes);
+         chunks.add(storeChunk(buffer, bytes, pendingChunks, storedChunks));
+         if (bytes < buffer.length) {
+            break;
+         }
+         if (buffers.size() == batchSize) {
+            flushChunks(pendingChunks);
+            releaseChunkBuffers(buffers);
+         }
       }
+      flushChunks(pendingChunks);
+      releaseChunkBuffers(buffers);
       return chunks.build();
    }
+
+   /**
+    * With deduplication a chunk with the same hash is referenced instead of inserting a new one, looking first at
+    * the chunks stored by the current payload since the pending ones are not visible to the hash lookup. A new chunk
+    * is stored when the chunk found by the lookup is deleted before it could be referenced.
+    *
+    * @return the id of the chunk holding the data
+    */
+   private Long storeChunk(byte[] buffer, int bytes, Map<Long, ChunkEntity> pendingChunks, Map<String, Long> storedChunks)
+         throws IOException {
+      String hash = null;
+      if (deduplication) {
+         hash = chunkHash(buffer, bytes);
+         Long chunkId = storedChunks.get(hash);
+         if (chunkId == null) {
+            chunkId = chunkRepository.findChunkIdByHash(hash);
+         }
+         if (chunkId != null) {
+            ChunkEntity pendingChunk = pendingChunks.get(chunkId);
+            if (pendingChunk != null) {
+               pendingChunk.setRefCount(pendingChunk.getRefCount() + 1);
+               metrics.increment(JdbcMetrics.CHUNKS_DEDUPLICATED, 1);
+               return chunkId;
+            }
+            // The chunk may have been released by another transaction since it was looked up
+            if (chunkRepository.addReference(chunkId)) {
+               metrics.increment(JdbcMetrics.CHUNKS_DEDUPLICATED, 1);
+               return chunkId;
+            }
+         }
+      }
+      // Encoded chunks never hold on to the buffer, unencoded ones kept in the database keep it until the batch is
+      // flushed except for the last chunk that gets its own array
+      ChunkEntity chunk = new ChunkEntity(null, bytes, hash);
+      chunkStore.write(chunk, codec.encode(buffer, bytes));
+      Long chunkId = chunkRepository.create(chunk).getId();
+      metrics.increment(JdbcMetrics.CHUNKS_WRITTEN, 1);
+      pendingChunks.put(chunkId, chunk);
+      if (hash != null) {
+         storedChunks.put(hash, chunkId);
+      }
+      return chunkId;
+   }
+
+   /**
+    * The codec name is part of the hash of encoded chunks, chunks are only shared by payloads with the same codec
+    */
+   private String chunkHash(byte[] buffer, int bytes) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      if (codec != ChunkCodecs.NONE) {
+         hasher.putString(codec.getName(), Charsets.UTF_8).putByte((byte) 0);
+      }
+      return hasher.putBytes(buffer, 0, bytes).hash().toString();
+   }
+
+   private void flushChunks(Map<Long, ChunkEntity> pendingChunks) {
+      if (pendingChunks.isEmpty()) {
+         return;
+      }
+      chunkRepository.flush();
+      for (ChunkEntity chunk : pendingChunks.values()) {
+         chunkRepository.detach(chunk);
+      }
+      pendingChunks.clear();
+   }
+
+   private byte[] acquireChunkBuffer() {
+      byte[] buffer = chunkBuffers.poll();
+      return buffer != null ? buffer : new byte[chunkSize];
+   }
+
+   private void releaseChunkBuffers(List<byte[]> buffers) {
+      for (byte[] buffer : buffers) {
+         if (!chunkBuffers.offer(buffer)) {
+            break;
+         }
+      }
+      buffers.clear();
+   }
+
+   static final class StoredPayload {
+      private final List<Long> chunks;
+      private final HashCode md5;
+      private final long size;
+
+      private StoredPayload(List<Long> chunks, HashCode md5, long size) {
+         this.chunks = chunks;
+         this.md5 = md5;
+         this.size = size;
+      }
+   }
 }
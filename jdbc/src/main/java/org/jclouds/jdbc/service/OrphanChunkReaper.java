@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.inject.Inject;
+import org.jclouds.Constants;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.Closeable;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_ORPHAN_GRACE_PERIOD;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL;
+
+/**
+ * Periodically deletes the chunks left behind by writes that failed after storing their data and by overwritten
+ * blobs, then frees the segment files no chunk refers to anymore. Chunks and segments are only deleted once they are
+ * older than the grace period, so the chunks of the writes in progress and of the streams still reading an
+ * overwritten blob are kept.
+ */
+@Singleton
+public class OrphanChunkReaper implements Runnable {
+
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final JdbcService jdbcService;
+   private final long gracePeriod;
+
+   @Inject
+   OrphanChunkReaper(JdbcService jdbcService,
+         @Named(Constants.PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+         @Named(PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL) long interval,
+         @Named(PROPERTY_JDBC_ORPHAN_GRACE_PERIOD) long gracePeriod, Closer closer) {
+      checkArgument(interval >= 0, "%s must not be negative", PROPERTY_JDBC_ORPHAN_REAPER_INTERVAL);
+      checkArgument(gracePeriod >= 0, "%s must not be negative", PROPERTY_JDBC_ORPHAN_GRACE_PERIOD);
+      this.jdbcService = jdbcService;
+      this.gracePeriod = gracePeriod;
+      if (interval > 0) {
+         final ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.SECONDS);
+         closer.addToClose(new Closeable() {
+            @Override
+            public void close() {
+               future.cancel(false);
+            }
+         });
+      }
+   }
+
+   @Override
+   public void run() {
+      try {
+         Date before = new Date(System.currentTimeMillis() - gracePeriod * 1000);
+         int deleted = jdbcService.deleteOrphanChunks(before);
+         int reclaimed = jdbcService.reclaimChunkSegments(before);
+         logger.debug("deleted %d orphan chunks and %d unused segments", deleted, reclaimed);
+      } catch (RuntimeException e) {
+         // A failure must not cancel the next runs
+         logger.warn(e, "could not delete the orphan chunks");
+      }
+   }
+
+}
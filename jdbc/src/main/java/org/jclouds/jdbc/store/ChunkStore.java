@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.store;
+
+import org.jclouds.jdbc.entity.ChunkEntity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Holds the data of the chunks. The chunk rows always stay in the database with their references, the store decides
+ * whether the encoded data goes to the row itself or somewhere else.
+ */
+public interface ChunkStore extends Closeable {
+
+   /**
+    * Stores the encoded data of a new chunk and records where it went in the chunk
+    */
+   void write(ChunkEntity chunk, byte[] data) throws IOException;
+
+   /**
+    * @return the encoded data of a chunk written by this store, the buffer may map the data without copying it
+    */
+   ByteBuffer read(ChunkEntity chunk) throws IOException;
+
+   /**
+    * Makes the data written so far durable, it is called before the chunk rows are committed
+    */
+   void sync() throws IOException;
+
+   /**
+    * Frees the space of the segments no chunk row refers to anymore
+    *
+    * @param referencedSegments the segments referenced by chunk rows
+    * @param modifiedBefore segments modified since then are kept, they may hold chunks of writes in progress
+    * @return the number of freed segments
+    */
+   int reclaim(Collection<Integer> referencedSegments, Date modifiedBefore);
+
+}
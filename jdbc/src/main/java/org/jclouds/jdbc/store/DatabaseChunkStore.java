@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.store;
+
+import org.jclouds.jdbc.entity.ChunkEntity;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Keeps the chunk data in the chunk rows
+ */
+public class DatabaseChunkStore implements ChunkStore {
+
+   @Override
+   public void write(ChunkEntity chunk, byte[] data) {
+      chunk.setData(data);
+   }
+
+   @Override
+   public ByteBuffer read(ChunkEntity chunk) {
+      return ByteBuffer.wrap(chunk.getData());
+   }
+
+   @Override
+   public void sync() {
+   }
+
+   @Override
+   public int reclaim(Collection<Integer> referencedSegments, Date modifiedBefore) {
+      return 0;
+   }
+
+   @Override
+   public void close() {
+   }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.store;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.util.Closeables2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Appends the chunk data to segment files and reads it back through memory mapped buffers, so chunks are neither
+ * copied through the database nor held on the heap. A new segment is started once the current one reaches the
+ * segment size. Segments are never rewritten: the space of deleted chunks is freed when no chunk of a segment is
+ * left and the segment is {@link #reclaim reclaimed}.
+ */
+public class SegmentChunkStore implements ChunkStore {
+
+   private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+
+   private final File directory;
+   private final long segmentSize;
+   private final ConcurrentMap<Integer, FileChannel> readers = Maps.newConcurrentMap();
+   private int segment;
+   private FileChannel writer;
+
+   /**
+    * @param directory the directory of the segment files, created if needed
+    * @param segmentSize the size from which a new segment is started, chunks are never split between segments
+    */
+   public SegmentChunkStore(File directory, long segmentSize) throws IOException {
+      checkArgument(segmentSize > 0, "segmentSize must be positive");
+      this.directory = checkNotNull(directory, "directory");
+      this.segmentSize = segmentSize;
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+         throw new IOException("Could not create the chunk directory " + directory);
+      }
+      // Writes continue in the last segment, the chunks written before a restart keep their position
+      for (int existing : segments()) {
+         segment = Math.max(segment, existing);
+      }
+      writer = open(segment, "rw");
+   }
+
+   @Override
+   public synchronized void write(ChunkEntity chunk, byte[] data) throws IOException {
+      checkState(writer != null, "the chunk store is closed");
+      long position = writer.size();
+      if (position > 0 && position + data.length > segmentSize) {
+         writer.force(false);
+         writer.close();
+         segment++;
+         writer = open(segment, "rw");
+         position = 0;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      while (buffer.hasRemaining()) {
+         writer.write(buffer, position + buffer.position());
+      }
+      chunk.setData(null);
+      chunk.setSegment(segment);
+      chunk.setSegmentOffset(position);
+      chunk.setStoredSize(data.length);
+   }
+
+   @Override
+   public ByteBuffer read(ChunkEntity chunk) throws IOException {
+      checkArgument(chunk.getSegment() != null, "chunk %s is not stored in a segment", chunk.getId());
+      return reader(chunk.getSegment()).map(FileChannel.MapMode.READ_ONLY, chunk.getSegmentOffset(),
+            chunk.getStoredSize());
+   }
+
+   @Override
+   public synchronized void sync() throws IOException {
+      if (writer != null) {
+         writer.force(false);
+      }
+   }
+
+   @Override
+   public int reclaim(Collection<Integer> referencedSegments, Date modifiedBefore) {
+      Set<Integer> referenced = ImmutableSet.copyOf(referencedSegments);
+      int reclaimed = 0;
+      for (int unused : segments()) {
+         File file = segmentFile(unused);
+         synchronized (this) {
+            if (unused == segment || referenced.contains(unused) || file.lastModified() >= modifiedBefore.getTime()) {
+               continue;
+            }
+         }
+         FileChannel reader = readers.remove(unused);
+         if (reader != null) {
+            Closeables2.closeQuietly(reader);
+         }
+         // A segment that cannot be deleted yet is tried again on the next reclaim
+         if (file.delete()) {
+            reclaimed++;
+         }
+      }
+      return reclaimed;
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      for (FileChannel reader : readers.values()) {
+         Closeables2.closeQuietly(reader);
+      }
+      readers.clear();
+      if (writer != null) {
+         writer.close();
+         writer = null;
+      }
+   }
+
+   private FileChannel reader(int number) throws IOException {
+      FileChannel reader = readers.get(number);
+      if (reader == null) {
+         FileChannel opened = open(number, "r");
+         reader = readers.putIfAbsent(number, opened);
+         if (reader == null) {
+            reader = opened;
+         } else {
+            opened.close();
+         }
+      }
+      return reader;
+   }
+
+   private FileChannel open(int number, String mode) throws IOException {
+      return new RandomAccessFile(segmentFile(number), mode).getChannel();
+   }
+
+   private File segmentFile(int number) {
+      return new File(directory, String.format("segment-%08d.dat", number));
+   }
+
+   private Set<Integer> segments() {
+      ImmutableSet.Builder<Integer> segments = ImmutableSet.builder();
+      String[] names = directory.list();
+      if (names != null) {
+         for (String name : names) {
+            Matcher matcher = SEGMENT_NAME.matcher(name);
+            if (matcher.matches()) {
+               segments.add(Integer.parseInt(matcher.group(1)));
+            }
+         }
+      }
+      return segments.build();
+   }
+
+}
@@ -19,6 +19,7 @@ package org.jclouds.jdbc.strategy;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -29,6 +30,7 @@ import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
@@ -41,13 +43,19 @@ import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.jdbc.conversion.BlobEntityToBlob;
+import org.jclouds.jdbc.domain.ChunkStatistics;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
 import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
 import org.jclouds.jdbc.predicates.validators.JdbcContainerNameValidator;
 import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.DelimitedKeyIterator;
+import org.jclouds.jdbc.util.KeyPrefixes;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -57,6 +65,8 @@ import com.google.common.collect.ImmutableList;
  */
 public class JdbcStorageStrategy implements LocalStorageStrategy {
 
+   private static final int KEYS_PAGE_SIZE = 1000;
+
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
    private final JdbcContainerNameValidator jdbcContainerNameValidator;
@@ -164,7 +174,6 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void deleteContainer(String container) {
       jdbcContainerNameValidator.validate(container);
-      jdbcService.deleteBlobsByContainer(container);
       jdbcService.deleteContainerByName(container);
    }
 
@@ -230,22 +239,78 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    }
 
    /**
-    * Lists all the blob keys in a container
+    * Lists all the blob keys in a container. The keys are read lazily, a page at a time, while iterating.
     *
     * @param container the name of the container
-    * @return the blob keys inside the container
+    * @param prefix only the keys starting with the prefix are listed, null lists all the keys
+    * @return the blob keys inside the container, in key order
     */
    @Override
    public Iterable<String> getBlobKeysInsideContainer(String container, String prefix) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         if (prefix != null && !blobEntity.getKey().startsWith(prefix)) {
-            continue;
-         }
-         result.add(blobEntity.getKey());
+      return listKeys(container, prefix);
+   }
+
+   /**
+    * Lists the blob keys in a container, rolling the keys that contain the delimiter after the prefix up into their
+    * common prefix. The keys are read with a single range scan on the prefix.
+    *
+    * @param container the name of the container
+    * @param prefix only the keys starting with the prefix are listed, null lists all the keys
+    * @param delimiter the delimiter of the common prefixes, null lists all the keys
+    * @return the blob keys and common prefixes, in key order
+    */
+   public Iterable<String> getBlobKeysInsideContainer(String container, final String prefix, final String delimiter)
+         throws IOException {
+      final Iterable<String> keys = listKeys(container, prefix);
+      if (delimiter == null) {
+         return keys;
       }
-      return result.build();
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new DelimitedKeyIterator(keys.iterator(), Strings.nullToEmpty(prefix), delimiter);
+         }
+      };
+   }
+
+   private Iterable<String> listKeys(final String container, final String prefix) {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new AbstractIterator<String>() {
+               private Iterator<String> page = ImmutableList.<String>of().iterator();
+               private String marker;
+               private boolean lastPage;
+
+               @Override
+               protected String computeNext() {
+                  if (!page.hasNext() && !lastPage) {
+                     List<String> keys = getBlobKeysInsideContainer(container, prefix, marker, KEYS_PAGE_SIZE);
+                     lastPage = keys.size() < KEYS_PAGE_SIZE;
+                     page = keys.iterator();
+                  }
+                  if (!page.hasNext()) {
+                     return endOfData();
+                  }
+                  marker = page.next();
+                  return marker;
+               }
+            };
+         }
+      };
+   }
+
+   /**
+    * Lists a page of the blob keys in a container
+    *
+    * @param container the name of the container
+    * @param prefix only the keys starting with the prefix are listed, null lists all the keys
+    * @param marker only the keys after the marker are listed, null starts from the first key
+    * @param limit the maximum number of keys to list
+    * @return the blob keys, in key order
+    */
+   public List<String> getBlobKeysInsideContainer(String container, String prefix, String marker, int limit) {
+      return jdbcService.findBlobKeys(container, prefix, marker, limit);
    }
 
    /**
@@ -260,6 +325,18 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       return blobEntityToBlob.apply(jdbcService.findBlobById(container, key));
    }
 
+   /**
+    * Gets the metadata of a blob with a projection query, neither the payload entity nor its chunk list are loaded
+    *
+    * @param container the name of the container containing the blob
+    * @param key the key of the blob
+    * @return the blob's metadata or null if the blob does not exist
+    */
+   public BlobMetadata getBlobMetadata(String container, String key) {
+      BlobEntity blobEntity = jdbcService.findBlobMetadata(container, key);
+      return blobEntity == null ? null : blobEntityToBlob.apply(blobEntity).getMetadata();
+   }
+
    /**
     * Store a blob in a container
     *
@@ -295,7 +372,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public BlobAccess getBlobAccess(String container, String key) {
-      return jdbcService.findBlobById(container, key).getBlobAccess();
+      return jdbcService.findBlobAccess(container, key);
    }
 
    /**
@@ -327,19 +404,34 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public String getSeparator() {
-      return "/";
+      return KeyPrefixes.SEPARATOR;
    }
 
    /**
-    * Count the blobs in a container
+    * Count the blobs in a container. Without a directory the blobs whose key starts with the prefix of the options
+    * are counted, all of them when there is none. With a directory the blobs inside it are counted, only its
+    * immediate children unless the options are recursive.
     *
     * @param container the name of the container
     * @param options options to filter what blobs are counted
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      if (options.getDir() == null) {
+         return jdbcService.countBlobs(container, options.getPrefix());
+      }
+      String prefix = KeyPrefixes.directoryPrefix(options.getDir());
+      if (options.isRecursive()) {
+         return jdbcService.countBlobs(container, prefix);
+      }
+      // Immediate children only, counted while scanning the directory range once
+      long count = 0;
+      for (String key : listKeys(container, prefix)) {
+         if (key.indexOf(getSeparator(), prefix.length()) < 0) {
+            count++;
+         }
+      }
+      return count;
    }
 
    /**
@@ -350,9 +442,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return true if the directory exists, false otherwise
     */
    public boolean directoryExists(String container, String directory) {
-      Blob blob = getBlob(container, directory);
-      return blob != null && "application/directory".equals(
-            blob.getMetadata().getContentMetadata().getContentType());
+      return "application/directory".equals(jdbcService.findContentType(container, directory));
    }
 
    /**
@@ -398,4 +488,22 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       }
    }
 
+   /**
+    * Reports how the stored chunks are shared between payloads
+    *
+    * @return the chunk statistics, including the deduplication ratio
+    */
+   public ChunkStatistics getChunkStatistics() {
+      return jdbcService.getChunkStatistics();
+   }
+
+   /**
+    * Reports the hits and misses of the cache of containers by name
+    *
+    * @return the container cache statistics
+    */
+   public CacheStats getContainerCacheStats() {
+      return jdbcService.getContainerCacheStats();
+   }
+
 }
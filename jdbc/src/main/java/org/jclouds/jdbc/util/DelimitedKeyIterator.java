@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Rolls the keys that contain the delimiter after the prefix up into their common prefix, which ends with the
+ * delimiter and is returned once. The keys must be in order and start with the prefix, so that the keys sharing a
+ * common prefix are consecutive and the rollup is done in a single pass.
+ */
+public final class DelimitedKeyIterator extends AbstractIterator<String> {
+
+   private final Iterator<String> keys;
+   private final String prefix;
+   private final String delimiter;
+   private String lastCommonPrefix;
+
+   public DelimitedKeyIterator(Iterator<String> keys, String prefix, String delimiter) {
+      this.keys = checkNotNull(keys, "keys");
+      this.prefix = checkNotNull(prefix, "prefix");
+      this.delimiter = checkNotNull(delimiter, "delimiter");
+      checkArgument(!delimiter.isEmpty(), "delimiter must not be empty");
+   }
+
+   @Override
+   protected String computeNext() {
+      while (keys.hasNext()) {
+         String key = keys.next();
+         int index = key.indexOf(delimiter, prefix.length());
+         if (index < 0) {
+            return key;
+         }
+         String commonPrefix = key.substring(0, index + delimiter.length());
+         if (!commonPrefix.equals(lastCommonPrefix)) {
+            lastCommonPrefix = commonPrefix;
+            return commonPrefix;
+         }
+      }
+      return endOfData();
+   }
+
+}
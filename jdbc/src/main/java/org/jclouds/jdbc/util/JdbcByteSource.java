@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.codec.ChunkCodec;
+import org.jclouds.jdbc.codec.ChunkCodecs;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link ByteSource} over the chunks of a payload. All the chunks but the last one have the same size, so slices
+ * only open the chunks that overlap the requested range instead of reading the payload from the beginning. Payloads
+ * with {@link #VARIABLE_CHUNK_SIZE} chunks are read from the beginning.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   /**
+    * Chunk size of the payloads whose chunks do not all have the same size
+    */
+   public static final int VARIABLE_CHUNK_SIZE = 0;
+
+   private final JdbcService jdbcService;
+   private final Supplier<List<Long>> chunks;
+   private final int chunkSize;
+   private final long offset;
+   private final long length;
+   private final int prefetchChunks;
+   private final ExecutorService executor;
+   private final ChunkCodec codec;
+
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, int chunkSize, long length, int prefetchChunks,
+         @Nullable ExecutorService executor) {
+      this(jdbcService, Suppliers.<List<Long>>ofInstance(ImmutableList.copyOf(checkNotNull(chunks, "chunks"))),
+            chunkSize, length, prefetchChunks, executor, ChunkCodecs.NONE);
+   }
+
+   /**
+    * @param chunks supplies the chunk ids when a stream is opened, it should memoize them since all the slices of
+    *               the source share it
+    * @param codec the codec the chunks were encoded with
+    */
+   public JdbcByteSource(JdbcService jdbcService, Supplier<List<Long>> chunks, int chunkSize, long length,
+         int prefetchChunks, @Nullable ExecutorService executor, ChunkCodec codec) {
+      this(jdbcService, checkNotNull(chunks, "chunks"), chunkSize, 0, length, prefetchChunks, executor, codec);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, Supplier<List<Long>> chunks, int chunkSize, long offset, long length,
+         int prefetchChunks, ExecutorService executor, ChunkCodec codec) {
+      checkArgument(chunkSize >= 0, "chunkSize must be non-negative");
+      checkArgument(length >= 0, "length must be non-negative");
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.chunks = chunks;
+      this.chunkSize = chunkSize;
+      this.offset = offset;
+      this.length = length;
+      this.prefetchChunks = prefetchChunks;
+      this.executor = executor;
+      this.codec = checkNotNull(codec, "codec");
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      if (length == 0) {
+         return new ByteArrayInputStream(new byte[0]);
+      }
+      List<Long> chunks = this.chunks.get();
+      if (chunks.isEmpty()) {
+         throw new IOException("Could not find the chunks of the payload.");
+      }
+      int firstChunk = 0;
+      int lastChunk = chunks.size() - 1;
+      if (chunkSize != VARIABLE_CHUNK_SIZE) {
+         firstChunk = (int) (offset / chunkSize);
+         lastChunk = (int) Math.min((offset + length - 1) / chunkSize, lastChunk);
+      }
+      InputStream in = new JdbcInputStream(jdbcService, chunks.subList(firstChunk, lastChunk + 1), prefetchChunks,
+            executor, codec);
+      ByteStreams.skipFully(in, offset - (long) firstChunk * chunkSize);
+      return ByteStreams.limit(in, length);
+   }
+
+   @Override
+   public ByteSource slice(long offset, long length) {
+      checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+      checkArgument(length >= 0, "length (%s) may not be negative", length);
+      long sliceOffset = Math.min(offset, this.length);
+      long sliceLength = Math.min(length, this.length - sliceOffset);
+      return new JdbcByteSource(jdbcService, chunks, chunkSize, this.offset + sliceOffset, sliceLength, prefetchChunks,
+            executor, codec);
+   }
+
+   @Override
+   public long size() {
+      return length;
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return length == 0;
+   }
+
+}
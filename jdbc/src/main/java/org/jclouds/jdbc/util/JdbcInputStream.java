@@ -16,29 +16,68 @@
  */
 package org.jclouds.jdbc.util;
 
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.codec.ChunkCodec;
+import org.jclouds.jdbc.codec.ChunkCodecs;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
+/**
+ * Streams the chunks of a payload. Chunks are loaded in windows of {@code prefetchChunks} ids with a single query.
+ * When an executor is given, the next window is loaded in the background while the current one is being read.
+ * Chunks kept in segment files are read from mapped buffers without copying them unless they have to be decoded.
+ */
 public class JdbcInputStream extends InputStream {
 
    private JdbcService jdbcService;
 
    private final List<Long> chunks;
-   private ChunkEntity currentChunk;
-   private int bytesRead;
+   private final int window;
+   private final ExecutorService executor;
+   private final ChunkCodec codec;
+   private final Deque<ByteBuffer> loadedChunks;
+   private Future<List<ByteBuffer>> prefetchedChunks;
+   private int nextChunk;
+   private ByteBuffer currentChunk;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, 0, null);
+   }
+
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int prefetchChunks,
+         @Nullable ExecutorService executor) {
+      this(jdbcService, chunks, prefetchChunks, executor, ChunkCodecs.NONE);
+   }
+
+   /**
+    * @param codec the codec the chunks were encoded with, chunks are decoded as they are loaded
+    */
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int prefetchChunks,
+         @Nullable ExecutorService executor, ChunkCodec codec) {
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
-      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
-      this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
+      // The same chunk may appear several times when chunks are deduplicated
+      this.chunks = new ArrayList<Long>(checkNotNull(chunks, "chunks"));
+      this.window = Math.max(1, prefetchChunks);
+      this.executor = executor;
+      this.codec = checkNotNull(codec, "codec");
+      this.loadedChunks = new ArrayDeque<ByteBuffer>(window);
       try {
          readNextChunk();
       } catch (IOException e) {
@@ -48,29 +87,129 @@ public class JdbcInputStream extends InputStream {
 
    @Override
    public synchronized int read() throws IOException {
-      if (hasFinished()) {
+      if (!hasRemaining()) {
          return -1;
       }
-      int b = currentChunk.getData()[bytesRead] & 0xff;
-      bytesRead = bytesRead + 1;
-      if (bytesRead >= currentChunk.getSize()) {
-         readNextChunk();
+      return currentChunk.get() & 0xff;
+   }
+
+   @Override
+   public synchronized int read(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+         return 0;
+      }
+      int total = 0;
+      while (total < len && hasRemaining()) {
+         int bytes = Math.min(len - total, currentChunk.remaining());
+         currentChunk.get(b, off + total, bytes);
+         total = total + bytes;
       }
-      return b;
+      return total == 0 ? -1 : total;
    }
 
-   private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+   @Override
+   public synchronized long skip(long n) throws IOException {
+      long skipped = 0;
+      while (skipped < n && hasRemaining()) {
+         int bytes = (int) Math.min(n - skipped, currentChunk.remaining());
+         currentChunk.position(currentChunk.position() + bytes);
+         skipped = skipped + bytes;
+      }
+      return skipped;
+   }
+
+   @Override
+   public synchronized int available() {
+      return currentChunk == null ? 0 : currentChunk.remaining();
    }
 
-   private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
-         if (currentChunk == null) {
-            throw new IOException("Could not find chunk.");
+   @Override
+   public synchronized void close() {
+      if (prefetchedChunks != null) {
+         // Interrupting a running query would close the database files, let it complete and drop its result
+         prefetchedChunks.cancel(false);
+         prefetchedChunks = null;
+      }
+      loadedChunks.clear();
+      nextChunk = chunks.size();
+      currentChunk = null;
+   }
+
+   private boolean hasRemaining() throws IOException {
+      while (currentChunk != null && !currentChunk.hasRemaining()) {
+         if (!readNextChunk()) {
+            return false;
+         }
+      }
+      return currentChunk != null;
+   }
+
+   private boolean readNextChunk() throws IOException {
+      if (loadedChunks.isEmpty()) {
+         if (nextChunk >= chunks.size()) {
+            return false;
+         }
+         loadedChunks.addAll(prefetchedChunks != null ? awaitPrefetchedChunks() : loadChunks(nextWindow()));
+         if (executor != null && nextChunk < chunks.size()) {
+            final List<Long> ids = nextWindow();
+            prefetchedChunks = executor.submit(new Callable<List<ByteBuffer>>() {
+               @Override
+               public List<ByteBuffer> call() throws IOException {
+                  return loadChunks(ids);
+               }
+            });
+         }
+      }
+      this.currentChunk = loadedChunks.poll();
+      return true;
+   }
+
+   private List<Long> nextWindow() {
+      List<Long> ids = chunks.subList(nextChunk, Math.min(nextChunk + window, chunks.size()));
+      nextChunk = nextChunk + ids.size();
+      return ids;
+   }
+
+   private List<ByteBuffer> loadChunks(List<Long> ids) throws IOException {
+      List<ChunkEntity> result = window == 1 ? Collections.singletonList(jdbcService.findChunkById(ids.get(0)))
+            : jdbcService.findChunksByIds(ids);
+      if (result == null || result.size() != ids.size() || result.contains(null)) {
+         throw new IOException("Could not find chunk.");
+      }
+      List<ByteBuffer> data = new ArrayList<ByteBuffer>(result.size());
+      for (ChunkEntity chunk : result) {
+         data.add(decode(chunk));
+      }
+      return data;
+   }
+
+   private ByteBuffer decode(ChunkEntity chunk) throws IOException {
+      if (chunk.getData() != null) {
+         return ByteBuffer.wrap(codec.decode(chunk.getData(), chunk.getSize()), 0, chunk.getSize());
+      }
+      ByteBuffer data = jdbcService.readChunkData(chunk);
+      if (codec == ChunkCodecs.NONE) {
+         return data;
+      }
+      byte[] encoded = new byte[data.remaining()];
+      data.get(encoded);
+      return ByteBuffer.wrap(codec.decode(encoded, chunk.getSize()));
+   }
+
+   private List<ByteBuffer> awaitPrefetchedChunks() throws IOException {
+      try {
+         return prefetchedChunks.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while loading chunks");
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
          }
-         chunks.remove(0);
-         this.bytesRead = 0;
+         throw new IOException(e.getCause());
+      } finally {
+         prefetchedChunks = null;
       }
    }
 
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+/**
+ * Helpers to match keys by prefix. Prefixes are matched with an escaped LIKE pattern, which selects exactly the keys
+ * starting with the prefix whatever the collation of the key column. Databases turn a LIKE on a literal prefix into an
+ * index range scan themselves where the collation allows it.
+ */
+public final class KeyPrefixes {
+
+   public static final String SEPARATOR = "/";
+
+   /**
+    * Escape character of the patterns returned by {@link #likePattern(String)}, to be declared with
+    * {@code LIKE :pattern ESCAPE '!'}. It needs no escaping in SQL string literals, unlike a backslash in MySQL.
+    */
+   public static final char LIKE_ESCAPE = '!';
+
+   private KeyPrefixes() {
+      throw new AssertionError("Intentionally Unimplemented");
+   }
+
+   /**
+    * @return the LIKE pattern matching the keys that start with the prefix, the wildcards and the escape character
+    * in the prefix being taken literally
+    */
+   public static String likePattern(String prefix) {
+      StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+      for (int i = 0; i < prefix.length(); i++) {
+         char c = prefix.charAt(i);
+         if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+            pattern.append(LIKE_ESCAPE);
+         }
+         pattern.append(c);
+      }
+      return pattern.append('%').toString();
+   }
+
+   /**
+    * @return the prefix shared by the keys inside a directory, e.g. {@code dir/} for {@code dir}
+    */
+   public static String directoryPrefix(String directory) {
+      return directory.endsWith(SEPARATOR) ? directory : directory + SEPARATOR;
+   }
+
+}
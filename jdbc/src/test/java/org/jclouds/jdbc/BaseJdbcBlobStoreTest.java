@@ -17,6 +17,7 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -28,17 +29,26 @@ import org.jclouds.blobstore.BlobRequestSigner;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.PhantomPayload;
 import org.jclouds.io.payloads.StringPayload;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.util.ByteStreams2;
 import org.jclouds.util.Closeables2;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.AfterMethod;
@@ -51,6 +61,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.google.common.io.BaseEncoding.base16;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -620,6 +634,156 @@ public abstract class BaseJdbcBlobStoreTest {
       }
    }
 
+   @Test
+   public void testRangesAcrossChunks() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource input = randomByteSource().slice(0, 3 * 1024 * 1024 + 512);
+      Blob blob = blobStore.blobBuilder("test").payload(input).build();
+      blobStore.putBlob(CONTAINER_NAME, blob);
+
+      GetOptions getOptionsFragment = new GetOptions();
+      getOptionsFragment.range(1024 * 1024 + 100, 2 * 1024 * 1024 + 100);
+      Blob blobFragment = blobStore.getBlob(CONTAINER_NAME, blob.getMetadata().getName(), getOptionsFragment);
+      Payload payload = blobFragment.getPayload();
+      try {
+         assertEquals(ByteStreams2.toByteArrayAndClose(payload.openStream()),
+               input.slice(1024 * 1024 + 100, 1024 * 1024 + 1).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+
+      GetOptions getOptionsRangeTail = new GetOptions();
+      getOptionsRangeTail.tail(1000);
+      Blob blobRangeTail = blobStore.getBlob(CONTAINER_NAME, blob.getMetadata().getName(), getOptionsRangeTail);
+      payload = blobRangeTail.getPayload();
+      try {
+         assertEquals(ByteStreams2.toByteArrayAndClose(payload.openStream()),
+               input.slice(3 * 1024 * 1024 + 512 - 1000, 1000).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testCopyBlob() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.createContainerInLocation(null, "other-container");
+      ByteSource input = randomByteSource().slice(0, 2 * 1024 * 1024 + 100);
+      Blob blob = blobStore.blobBuilder(BLOB_NAME).payload(input).contentType("text/plain").build();
+      String etag = blobStore.putBlob(CONTAINER_NAME, blob);
+      JdbcService jdbcService = context.utils().injector().getInstance(JdbcService.class);
+      long chunks = jdbcService.getChunkStatistics().getChunks();
+
+      CopyOptions options = CopyOptions.builder().userMetadata(ImmutableMap.of("key", "value")).build();
+      assertThat(blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, "other-container", "copy", options)).isEqualTo(etag);
+      assertThat(jdbcService.getChunkStatistics().getChunks()).isEqualTo(chunks);
+      assertThat(jdbcService.getChunkStatistics().getReferences()).isEqualTo(2 * chunks);
+
+      blobStore.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      Blob copy = blobStore.getBlob("other-container", "copy");
+      assertThat(copy.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(copy.getMetadata().getUserMetadata()).containsEntry("key", "value");
+      assertEquals(ByteStreams2.toByteArrayAndClose(copy.getPayload().openStream()), input.read());
+
+      // Copying a blob onto itself keeps its chunks
+      blobStore.copyBlob("other-container", "copy", "other-container", "copy", CopyOptions.NONE);
+      assertThat(jdbcService.getChunkStatistics().getReferences()).isEqualTo(chunks);
+      blobStore.removeBlob("other-container", "copy");
+      assertThat(jdbcService.getChunkStatistics().getChunks()).isZero();
+   }
+
+   @Test
+   public void testCopyBlobReplacesContentMetadata() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      Blob blob = blobStore.blobBuilder(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).contentType("text/plain")
+            .contentDisposition("attachment; filename=blob.txt").build();
+      blobStore.putBlob(CONTAINER_NAME, blob);
+
+      // As with the other providers the content metadata is replaced, the values that are not set are cleared
+      CopyOptions options = CopyOptions.builder()
+            .contentMetadata(ContentMetadataBuilder.create().contentType("application/json").build()).build();
+      blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, "copy", options);
+      BlobMetadata copy = blobStore.blobMetadata(CONTAINER_NAME, "copy");
+      assertThat(copy.getContentMetadata().getContentType()).isEqualTo("application/json");
+      assertThat(copy.getContentMetadata().getContentDisposition()).isNull();
+      assertThat(copy.getContentMetadata().getContentLength()).isEqualTo(1024);
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testCopyBlobNotExistingBlob() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, "copy", CopyOptions.NONE);
+   }
+
+   @Test
+   public void testMultipartUpload() throws Exception {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      // Parts that do not fill whole chunks
+      final ByteSource input = randomByteSource().slice(0, 4 * 1024 * 1024 + 100);
+      final long partSize = 1024 * 1024 + 512 * 1024;
+      BlobMetadata blobMetadata = blobStore.blobBuilder(BLOB_NAME).payload(new byte[0]).contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key", "value")).build().getMetadata();
+      final MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME, blobMetadata, new PutOptions());
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+
+      ExecutorService executor = Executors.newFixedThreadPool(3);
+      List<Future<MultipartPart>> futures = Lists.newArrayList();
+      try {
+         for (int i = 0; i < 3; i++) {
+            final int partNumber = i + 1;
+            futures.add(executor.submit(new Callable<MultipartPart>() {
+               @Override
+               public MultipartPart call() {
+                  ByteSource part = input.slice((partNumber - 1) * partSize, partSize);
+                  return blobStore.uploadMultipartPart(mpu, partNumber, Payloads.newByteSourcePayload(part));
+               }
+            }));
+         }
+         List<MultipartPart> parts = Lists.newArrayList();
+         for (Future<MultipartPart> future : futures) {
+            parts.add(future.get());
+         }
+         assertThat(blobStore.listMultipartUpload(mpu)).hasSize(3);
+
+         String etag = blobStore.completeMultipartUpload(mpu, parts);
+         assertThat(etag).endsWith("-3");
+      } finally {
+         executor.shutdown();
+      }
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(blob.getMetadata().getUserMetadata()).containsEntry("key", "value");
+      assertThat(blob.getMetadata().getSize()).isEqualTo(input.size());
+      assertEquals(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()), input.read());
+
+      GetOptions getOptions = new GetOptions().range(2 * 1024 * 1024, 3 * 1024 * 1024 + 99);
+      Payload payload = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME, getOptions).getPayload();
+      try {
+         assertEquals(ByteStreams2.toByteArrayAndClose(payload.openStream()),
+               input.slice(2 * 1024 * 1024, 1024 * 1024 + 100).read());
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   @Test
+   public void testAbortMultipartUpload() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      BlobMetadata blobMetadata = blobStore.blobBuilder(BLOB_NAME).payload(new byte[0]).build().getMetadata();
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME, blobMetadata, new PutOptions());
+      blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteArrayPayload(new byte[] { 1, 2, 3 }));
+      blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteArrayPayload(new byte[] { 4, 5 }));
+      List<MultipartPart> parts = blobStore.listMultipartUpload(mpu);
+      assertThat(parts).hasSize(1);
+      assertThat(parts.get(0).partSize()).isEqualTo(2);
+
+      blobStore.abortMultipartUpload(mpu);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      assertThat(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+   }
+
    @Test
    public void testBlobRequestSigner() throws Exception {
       String containerName = "container";
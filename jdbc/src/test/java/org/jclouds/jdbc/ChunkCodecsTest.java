@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import org.jclouds.jdbc.codec.ChunkCodec;
+import org.jclouds.jdbc.codec.ChunkCodecs;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "ChunkCodecsTest")
+public class ChunkCodecsTest {
+
+   @Test
+   public void testNoneKeepsFullBuffer() {
+      byte[] buffer = new byte[] { 1, 2, 3 };
+      assertThat(ChunkCodecs.NONE.encode(buffer, 3)).isSameAs(buffer);
+      assertThat(ChunkCodecs.NONE.encode(buffer, 2)).isEqualTo(new byte[] { 1, 2 });
+   }
+
+   @Test
+   public void testDeflateRoundTrip() throws IOException {
+      byte[] buffer = new byte[64 * 1024];
+      Arrays.fill(buffer, 0, 60 * 1024, (byte) 'a');
+      ChunkCodec codec = ChunkCodecs.forName("deflate");
+      byte[] encoded = codec.encode(buffer, 60 * 1024);
+      assertThat(encoded.length).isLessThan(1024);
+      assertThat(codec.decode(encoded, 60 * 1024)).isEqualTo(Arrays.copyOf(buffer, 60 * 1024));
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testDeflateTruncatedData() throws IOException {
+      byte[] buffer = new byte[1024];
+      Arrays.fill(buffer, (byte) 'a');
+      ChunkCodecs.DEFLATE.decode(ChunkCodecs.DEFLATE.encode(buffer, buffer.length), 2048);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnknownCodec() {
+      ChunkCodecs.forName("lz4");
+   }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import org.jclouds.jdbc.codec.ChunkCodecs;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcByteSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createStrictMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+@Test(groups = "unit", testName = "JdbcByteSourceTest")
+public class JdbcByteSourceTest {
+
+   private JdbcService mockJdbcService;
+
+   @BeforeMethod
+   public void setUp() {
+      mockJdbcService = createStrictMock(JdbcService.class);
+   }
+
+   @Test
+   public void testReadAll() throws IOException {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(chunk(1L, "abc"));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk(2L, "def"));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk(3L, "g"));
+      replay(mockJdbcService);
+
+      assertThat(byteSource().asCharSource(US_ASCII).read()).isEqualTo("abcdefg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSliceOnlyLoadsOverlappingChunks() throws IOException {
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk(2L, "def"));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk(3L, "g"));
+      replay(mockJdbcService);
+
+      ByteSource slice = byteSource().slice(4, 10);
+      assertThat(slice.size()).isEqualTo(3);
+      assertThat(slice.asCharSource(US_ASCII).read()).isEqualTo("efg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSliceWithinChunk() throws IOException {
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk(2L, "def"));
+      replay(mockJdbcService);
+
+      assertThat(byteSource().slice(3, 2).asCharSource(US_ASCII).read()).isEqualTo("de");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testNestedSlice() throws IOException {
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk(2L, "def"));
+      replay(mockJdbcService);
+
+      assertThat(byteSource().slice(2, 4).slice(1, 2).asCharSource(US_ASCII).read()).isEqualTo("de");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testEmptySlice() throws IOException {
+      replay(mockJdbcService);
+
+      assertThat(byteSource().slice(7, 2).isEmpty()).isTrue();
+      assertThat(byteSource().slice(7, 2).read()).isEmpty();
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testChunkIdsLoadedOnOpen() throws IOException {
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk(3L, "g"));
+      replay(mockJdbcService);
+
+      final AtomicInteger loads = new AtomicInteger();
+      Supplier<List<Long>> chunks = new Supplier<List<Long>>() {
+         @Override
+         public List<Long> get() {
+            loads.incrementAndGet();
+            return ImmutableList.of(1L, 2L, 3L);
+         }
+      };
+      ByteSource slice = new JdbcByteSource(mockJdbcService, chunks, 3, 7, 0, null, ChunkCodecs.NONE)
+            .slice(6, 1);
+      assertThat(slice.size()).isEqualTo(1);
+      assertThat(loads.get()).isZero();
+      assertThat(slice.asCharSource(US_ASCII).read()).isEqualTo("g");
+      assertThat(loads.get()).isEqualTo(1);
+      verify(mockJdbcService);
+   }
+
+   private JdbcByteSource byteSource() {
+      return new JdbcByteSource(mockJdbcService, ImmutableList.of(1L, 2L, 3L), 3, 7, 0, null);
+   }
+
+   private static ChunkEntity chunk(Long id, String data) {
+      ChunkEntity chunk = new ChunkEntity(data.getBytes(US_ASCII), data.length());
+      chunk.setId(id);
+      return chunk;
+   }
+
+}
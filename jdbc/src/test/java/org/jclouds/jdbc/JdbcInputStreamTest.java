@@ -17,16 +17,23 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 import org.jclouds.jdbc.util.JdbcInputStream;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static com.google.common.base.Charsets.US_ASCII;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
@@ -56,4 +63,57 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testBulkReadAcrossChunks() throws IOException {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(chunk(1L, "abc"));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(chunk(2L, "def"));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(chunk(3L, "g"));
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L));
+      byte[] buffer = new byte[5];
+      assertThat(jdbcInputStream.read(buffer, 0, 5)).isEqualTo(5);
+      assertThat(new String(buffer, US_ASCII)).isEqualTo("abcde");
+      assertThat(jdbcInputStream.read()).isEqualTo('f');
+      assertThat(jdbcInputStream.read(buffer, 0, 5)).isEqualTo(1);
+      assertThat(buffer[0]).isEqualTo((byte) 'g');
+      assertThat(jdbcInputStream.read(buffer, 0, 5)).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testPrefetchChunks() throws IOException {
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(1L, 2L)))
+            .andReturn(ImmutableList.of(chunk(1L, "abc"), chunk(2L, "def")));
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(3L))).andReturn(ImmutableList.of(chunk(3L, "g")));
+      replay(mockJdbcService);
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L), 2,
+               executor);
+         assertThat(new String(ByteStreams.toByteArray(jdbcInputStream), US_ASCII)).isEqualTo("abcdefg");
+      } finally {
+         executor.shutdownNow();
+      }
+      verify(mockJdbcService);
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testPrefetchMissingChunk() throws IOException {
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(1L, 2L)))
+            .andReturn(ImmutableList.of(chunk(1L, "abc"), chunk(2L, "def")));
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(3L))).andReturn(ImmutableList.<ChunkEntity>of());
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L), 2, null);
+      ByteStreams.toByteArray(jdbcInputStream);
+   }
+
+   private static ChunkEntity chunk(Long id, String data) {
+      ChunkEntity chunk = new ChunkEntity(data.getBytes(US_ASCII), data.length());
+      chunk.setId(id);
+      return chunk;
+   }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
+import org.testng.Reporter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Base class for the jdbc benchmarks. Benchmarks are not run as part of the regular build, they can be run with
+ * <pre>
+ * mvn test -Dtest=H2StoreDataBenchmark -Dgroups=performance
+ * </pre>
+ * Each measurement is logged to the TestNG {@link Reporter} as operations per second, MB per second when data is
+ * transferred, elapsed time and bytes allocated per operation.
+ */
+public abstract class BaseJdbcBenchmark {
+
+   protected static final String CONTAINER_NAME = "jclouds-benchmark-container";
+   protected static final long MB = 1024 * 1024;
+
+   private final String jpaModuleName;
+   private final Map<String, String> persistenceProperties;
+   private final String mode;
+
+   protected JdbcStorageStrategy storageStrategy;
+   private Injector injector;
+
+   protected BaseJdbcBenchmark(String jpaModuleName) {
+      this(jpaModuleName, ImmutableMap.<String, String>of(), null);
+   }
+
+   /**
+    * @param persistenceProperties overrides of the persistence unit properties
+    * @param mode name of the database setup, shown in the reports
+    */
+   protected BaseJdbcBenchmark(String jpaModuleName, Map<String, String> persistenceProperties, @Nullable String mode) {
+      this.jpaModuleName = jpaModuleName;
+      this.persistenceProperties = persistenceProperties;
+      this.mode = mode;
+   }
+
+   /**
+    * The H2 setups the H2 benchmarks are run against, to be used with a {@link org.testng.annotations.Factory}
+    */
+   @DataProvider
+   public static Object[][] h2Modes() {
+      return new Object[][] { { "memory" }, { "file" } };
+   }
+
+   /**
+    * @return the persistence properties running the H2 persistence unit in memory or in a file
+    */
+   protected static Map<String, String> h2Properties(String mode) {
+      String url = "memory".equals(mode) ? "jdbc:h2:mem:jclouds-benchmark;DB_CLOSE_DELAY=-1"
+            : "jdbc:h2:./target/h2-benchmark";
+      return ImmutableMap.of("javax.persistence.jdbc.url", url);
+   }
+
+   @BeforeClass
+   protected void setUp() throws Exception {
+      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(),
+            new JpaPersistModule(jpaModuleName).properties(persistenceProperties)));
+      storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void tearDown() {
+      injector.getInstance(PersistService.class).stop();
+   }
+
+   /**
+    * Bytes allocated so far by the current thread, or -1 if the JVM does not expose allocation counters.
+    */
+   protected static long allocatedBytes() {
+      ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+         return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+      return -1;
+   }
+
+   protected void report(String operation, long bytes, long elapsedNanos, long allocated) {
+      report(operation, 1, bytes, elapsedNanos, allocated);
+   }
+
+   /**
+    * @param operations the number of operations measured
+    * @param bytes the bytes transferred by all the operations, 0 when they transfer no data
+    * @param allocated the bytes allocated by all the operations
+    */
+   protected void report(String operation, long operations, long bytes, long elapsedNanos, long allocated) {
+      double seconds = elapsedNanos / 1e9;
+      Reporter.log(String.format(Locale.ENGLISH, "%-8s %-40s %12.1f ops/s %10.1f MB/s %10.1f ms %14.1f B/op",
+            mode == null ? "" : mode, operation, operations / seconds, bytes / (double) MB / seconds,
+            elapsedNanos / 1e6, allocated / (double) operations), true);
+   }
+
+}
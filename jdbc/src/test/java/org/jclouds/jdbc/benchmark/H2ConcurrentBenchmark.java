@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Measures the throughput of a mixed workload of reads and writes of the same set of blobs as the number of threads
+ * grows, against an embedded H2 database in memory and in a file. Allocations are summed over the worker threads.
+ * Reads of a blob that is overwritten meanwhile must keep returning the replaced data, the benchmark fails when any
+ * read fails.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "H2ConcurrentBenchmark")
+public class H2ConcurrentBenchmark extends BaseJdbcBenchmark {
+
+   private static final int BLOB_SIZE = 64 * 1024;
+   private static final int BLOBS = 100;
+   private static final int OPERATIONS_PER_THREAD = 200;
+   private static final int WRITE_PERCENTAGE = 20;
+
+   private ByteSource payload;
+
+   @Factory(dataProvider = "h2Modes", dataProviderClass = BaseJdbcBenchmark.class)
+   public H2ConcurrentBenchmark(String mode) {
+      super("jclouds-test-h2", h2Properties(mode), mode);
+   }
+
+   @Override
+   @BeforeClass
+   protected void setUp() throws Exception {
+      super.setUp();
+      payload = randomByteSource().slice(0, BLOB_SIZE);
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+      for (int i = 0; i < BLOBS; i++) {
+         putBlob(i);
+      }
+   }
+
+   @DataProvider
+   public Object[][] threadCounts() {
+      return new Object[][] { { 1 }, { 4 }, { 16 }, { 64 } };
+   }
+
+   @Test(dataProvider = "threadCounts")
+   public void benchmarkMixedReadWrite(int threads) throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         final CountDownLatch startSignal = new CountDownLatch(1);
+         final AtomicInteger failedReads = new AtomicInteger();
+         final AtomicReference<Exception> readFailure = new AtomicReference<Exception>();
+         List<Future<Long>> allocations = Lists.newArrayListWithCapacity(threads);
+         for (int i = 0; i < threads; i++) {
+            final Random random = new Random(i);
+            allocations.add(executor.submit(new Callable<Long>() {
+               @Override
+               public Long call() throws Exception {
+                  startSignal.await();
+                  long allocated = allocatedBytes();
+                  byte[] buffer = new byte[BLOB_SIZE];
+                  for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                     int blob = random.nextInt(BLOBS);
+                     if (random.nextInt(100) < WRITE_PERCENTAGE) {
+                        putBlob(blob);
+                     } else {
+                        try {
+                           readBlob(blob, buffer);
+                        } catch (Exception e) {
+                           failedReads.incrementAndGet();
+                           readFailure.compareAndSet(null, e);
+                        }
+                     }
+                  }
+                  return allocatedBytes() - allocated;
+               }
+            }));
+         }
+
+         long start = System.nanoTime();
+         startSignal.countDown();
+         long allocated = 0;
+         for (Future<Long> allocation : allocations) {
+            allocated += allocation.get();
+         }
+         long elapsed = System.nanoTime() - start;
+         long operations = (long) threads * OPERATIONS_PER_THREAD;
+         report("mixed read/write " + threads + " threads", operations, operations * BLOB_SIZE, elapsed, allocated);
+         assertThat(failedReads.get()).as("failed reads, the first one with %s", readFailure.get()).isZero();
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private void putBlob(int blob) throws IOException {
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("blob-" + blob).payload(payload).build());
+   }
+
+   private void readBlob(int blob, byte[] buffer) throws IOException {
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, "blob-" + blob).getPayload().openStream();
+      try {
+         ByteStreams.readFully(data, buffer);
+      } finally {
+         data.close();
+      }
+   }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.io.ByteSource;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Measures how deleting a container and clearing a directory tree scale with the number of blobs against an
+ * embedded H2 database, in memory and in a file. Each blob counts as one operation.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "H2DeleteContainerBenchmark")
+public class H2DeleteContainerBenchmark extends BaseJdbcBenchmark {
+
+   private static final int BLOB_SIZE = 1024;
+   private static final int BLOBS_PER_DIRECTORY = 100;
+
+   @Factory(dataProvider = "h2Modes", dataProviderClass = BaseJdbcBenchmark.class)
+   public H2DeleteContainerBenchmark(String mode) {
+      super("jclouds-test-h2", h2Properties(mode), mode);
+   }
+
+   @DataProvider
+   public Object[][] blobCounts() {
+      return new Object[][] { { 1000 }, { 10000 }, { 100000 } };
+   }
+
+   @Test(dataProvider = "blobCounts")
+   public void benchmarkDeleteContainer(int blobs) throws IOException {
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+      putBlobs("", blobs);
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      long elapsed = System.nanoTime() - start;
+      report("deleteContainer " + blobs + " blobs", blobs, 0, elapsed, allocatedBytes() - allocated);
+   }
+
+   @Test(dataProvider = "blobCounts")
+   public void benchmarkClearDirectoryRecursively(int blobs) throws IOException {
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      for (int i = 0; i < blobs / BLOBS_PER_DIRECTORY; i++) {
+         String directory = "dir/" + i;
+         storageStrategy.createDirectory(CONTAINER_NAME, directory);
+         putBlobs(directory + "/", BLOBS_PER_DIRECTORY);
+      }
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive());
+      long elapsed = System.nanoTime() - start;
+      report("clearContainer recursive " + blobs + " blobs", blobs, 0, elapsed, allocatedBytes() - allocated);
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+   }
+
+   private void putBlobs(String prefix, int blobs) throws IOException {
+      ByteSource payload = randomByteSource().slice(0, BLOB_SIZE);
+      for (int i = 0; i < blobs; i++) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(prefix + "blob-" + i).payload(payload).build());
+      }
+   }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSource;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Measures the latency of listing a container, counting its blobs and reading a delimited listing as the number of
+ * blobs grows, against an embedded H2 database in memory and in a file.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "H2ListContainerBenchmark")
+public class H2ListContainerBenchmark extends BaseJdbcBenchmark {
+
+   private static final int ITERATIONS = 10;
+   private static final int BLOB_SIZE = 1024;
+   private static final int BLOBS_PER_DIRECTORY = 100;
+   private static final int PAGE_SIZE = 1000;
+
+   @Factory(dataProvider = "h2Modes", dataProviderClass = BaseJdbcBenchmark.class)
+   public H2ListContainerBenchmark(String mode) {
+      super("jclouds-test-h2", h2Properties(mode), mode);
+   }
+
+   @DataProvider
+   public Object[][] blobCounts() {
+      return new Object[][] { { 1000 }, { 10000 }, { 100000 } };
+   }
+
+   @Test(dataProvider = "blobCounts")
+   public void benchmarkListContainer(int blobs) throws IOException {
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+      ByteSource payload = randomByteSource().slice(0, BLOB_SIZE);
+      for (int i = 0; i < blobs; i++) {
+         String key = String.format("dir-%04d/blob-%08d", i / BLOBS_PER_DIRECTORY, i);
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(payload).build());
+      }
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+         List<String> page = storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, null, PAGE_SIZE);
+         storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, Iterables.getLast(page), PAGE_SIZE);
+      }
+      long elapsed = System.nanoTime() - start;
+      report("list first pages " + blobs + " blobs", ITERATIONS * 2, 0, elapsed, allocatedBytes() - allocated);
+
+      allocated = allocatedBytes();
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+         Iterables.size(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, "/"));
+      }
+      elapsed = System.nanoTime() - start;
+      report("list delimited " + blobs + " blobs", ITERATIONS, 0, elapsed, allocatedBytes() - allocated);
+
+      allocated = allocatedBytes();
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+         storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.recursive());
+      }
+      elapsed = System.nanoTime() - start;
+      report("countBlobs " + blobs + " blobs", ITERATIONS, 0, elapsed, allocatedBytes() - allocated);
+
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+   }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.io.ByteSource;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+/**
+ * Measures the write and read throughput and the allocation rate of the jdbc storage strategy for different blob
+ * sizes against an embedded H2 database, in memory and in a file.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "H2StoreDataBenchmark")
+public class H2StoreDataBenchmark extends BaseJdbcBenchmark {
+
+   private static final int ITERATIONS = 3;
+
+   @Factory(dataProvider = "h2Modes", dataProviderClass = BaseJdbcBenchmark.class)
+   public H2StoreDataBenchmark(String mode) {
+      super("jclouds-test-h2", h2Properties(mode), mode);
+   }
+
+   @Override
+   @BeforeClass
+   protected void setUp() throws Exception {
+      super.setUp();
+      storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+   }
+
+   @DataProvider
+   public Object[][] blobSizes() {
+      return new Object[][] { { MB }, { 100 * MB }, { 1024 * MB } };
+   }
+
+   @Test(dataProvider = "blobSizes")
+   public void benchmarkPutBlob(long size) throws IOException {
+      ByteSource payload = randomByteSource().slice(0, size);
+      // warm up
+      putBlob("warmup", payload);
+
+      for (int i = 0; i < ITERATIONS; i++) {
+         long allocated = allocatedBytes();
+         long start = System.nanoTime();
+         putBlob("blob-" + size, payload);
+         long elapsed = System.nanoTime() - start;
+         report("putBlob " + size / MB + " MB", size, elapsed, allocatedBytes() - allocated);
+      }
+      storageStrategy.clearContainer(CONTAINER_NAME);
+   }
+
+   @Test(dataProvider = "blobSizes")
+   public void benchmarkGetBlob(long size) throws IOException {
+      String key = "blob-" + size;
+      putBlob(key, randomByteSource().slice(0, size));
+      byte[] buffer = new byte[64 * 1024];
+
+      for (int i = 0; i < ITERATIONS; i++) {
+         long allocated = allocatedBytes();
+         long start = System.nanoTime();
+         InputStream data = storageStrategy.getBlob(CONTAINER_NAME, key).getPayload().openStream();
+         try {
+            while (data.read(buffer) != -1) {
+               // consume the stream
+            }
+         } finally {
+            data.close();
+         }
+         long elapsed = System.nanoTime() - start;
+         report("getBlob " + size / MB + " MB", size, elapsed, allocatedBytes() - allocated);
+      }
+      storageStrategy.clearContainer(CONTAINER_NAME);
+   }
+
+   private void putBlob(String key, ByteSource payload) throws IOException {
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(payload).build());
+   }
+
+}
@@ -16,31 +16,55 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
+import com.google.inject.persist.UnitOfWork;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.jdbc.domain.ChunkStatistics;
+import org.jclouds.jdbc.metrics.JdbcMetrics;
+import org.jclouds.jdbc.metrics.JdbcMetricsMXBean;
 import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.store.ChunkStore;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jclouds.utils.TestUtils.randomByteSource;
+import static org.testng.Assert.fail;
 
 public abstract class BaseJdbcStorageStrategyTest {
 
@@ -58,7 +82,11 @@ public abstract class BaseJdbcStorageStrategyTest {
 
    @BeforeMethod
    protected void setUp() throws Exception {
-      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName)));
+      createStorageStrategy(new Properties());
+   }
+
+   private void createStorageStrategy(Properties overrides) {
+      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(overrides), new JpaPersistModule(jpaModuleName)));
       storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
    }
 
@@ -105,6 +133,26 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testContainerCache() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PRIVATE);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isTrue();
+      assertThat(storageStrategy.getContainerCacheStats().missCount()).isEqualTo(1);
+      assertThat(storageStrategy.getContainerCacheStats().hitCount()).isEqualTo(1);
+
+      storageStrategy.setContainerAccess(CONTAINER_NAME, ContainerAccess.PUBLIC_READ);
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PUBLIC_READ);
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+
+      // A container created again with the same name gets a new id, writes must not go to the deleted one
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PRIVATE);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+   }
+
    @Test
    public void testGetAllContainerNames() {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME + "1", null, null)).isTrue();
@@ -177,6 +225,26 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
    }
 
+   @Test
+   public void testGetBlobMetadata() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name(BLOB_NAME)
+            .payload(randomByteSource().slice(0, 1024))
+            .contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key", "value"))
+            .build());
+      BlobMetadata metadata = storageStrategy.getBlobMetadata(CONTAINER_NAME, BLOB_NAME);
+      assertThat(metadata.getName()).isEqualTo(BLOB_NAME);
+      assertThat(metadata.getSize()).isEqualTo(1024);
+      assertThat(metadata.getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(metadata.getUserMetadata()).containsEntry("key", "value");
+      assertThat(storageStrategy.getBlobMetadata(CONTAINER_NAME, BLOB_NAME + "-missing")).isNull();
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "dir")).isTrue();
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+   }
+
    @Test
    public void testGetBlobAccess() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,6 +271,360 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testGetBlobKeysInContainerPage() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : Arrays.asList("c", "b_2", "a2", "b1", "a1")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, "a2", 2)).containsExactly("b1", "b_2");
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "b_", null, 10)).containsExactly("b_2");
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a")).containsExactly("a1", "a2");
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.prefix("a"))).isEqualTo(2);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(5);
+   }
+
+   @Test
+   public void testCountBlobs() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+      for (String key : Arrays.asList("dir/a", "dir/sub/b", "dir2/x", "other")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(5);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.prefix("dir"))).isEqualTo(4);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.prefix("missing"))).isZero();
+      // Non-recursive directory counts only cover the immediate children, the directory blob of dir/sub included
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"))).isEqualTo(2);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive()))
+            .isEqualTo(3);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir/sub")))
+            .isEqualTo(1);
+   }
+
+   @Test
+   public void testDirectoryListing() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+      for (String key : Arrays.asList("dir/a", "dir/sub/b", "dir/sub/c", "dir2/x", "other")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "dir/", "/"))
+            .containsExactly("dir/a", "dir/sub", "dir/sub/");
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, "/"))
+            .containsExactly("dir", "dir/", "dir2/", "other");
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"))).isEqualTo(2);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive()))
+            .isEqualTo(4);
+   }
+
+   @Test
+   public void testClearDirectoryRecursively() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+      for (String key : Arrays.asList("dir/a", "dir/sub/b", "other")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive());
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null)).containsOnly("dir", "other");
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(1);
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isZero();
+   }
+
+   @Test
+   public void testClearDirectoryWithWildcards() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : Arrays.asList("a_b/x", "axb/y", "a!b/z", "a%/w")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      // The wildcards and the escape character of the prefix are matched literally
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a!")).containsExactly("a!b/z");
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.prefix("a%"))).isEqualTo(1);
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("a_b").recursive());
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null)).containsOnly("axb/y", "a!b/z", "a%/w");
+   }
+
+   @Test
+   public void testCompressedChunks() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_CHUNK_SIZE, String.valueOf(64 * 1024));
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_COMPRESSION, "deflate");
+      tearDown();
+      createStorageStrategy(overrides);
+
+      byte[] content = getByteArray('a', 1024 * 1024 + 10);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      ChunkStatistics statistics = storageStrategy.getChunkStatistics();
+      assertThat(statistics.getChunks()).isEqualTo(17);
+      assertThat(statistics.getStoredBytes()).isEqualTo(content.length);
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content);
+      assertThat(((ByteSource) blob.getPayload().getRawContent()).slice(64 * 1024 - 5, 10).read())
+            .isEqualTo(Arrays.copyOfRange(content, 64 * 1024 - 5, 64 * 1024 + 5));
+   }
+
+   @Test
+   public void testDeduplicatedChunks() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_DEDUPLICATION, "true");
+      tearDown();
+      createStorageStrategy(overrides);
+
+      ByteSource chunk = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+      ByteSource content = ByteSource.concat(chunk, chunk, chunk);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+
+      ChunkStatistics statistics = storageStrategy.getChunkStatistics();
+      assertThat(statistics.getChunks()).isEqualTo(1);
+      assertThat(statistics.getReferences()).isEqualTo(6);
+      assertThat(statistics.getDeduplicationRatio()).isEqualTo(6.0);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(storageStrategy.getChunkStatistics().getReferences()).isEqualTo(3);
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().openStream()))
+            .isEqualTo(content.read());
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isZero();
+   }
+
+   @Test
+   public void testConcurrentPutBlob() throws Exception {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_WRITE_RETRIES, "20");
+      tearDown();
+      createStorageStrategy(overrides);
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<String>> etags = Lists.newArrayList();
+         for (int i = 0; i < 8; i++) {
+            final Blob blob = new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build();
+            etags.add(executor.submit(new Callable<String>() {
+               @Override
+               public String call() throws IOException {
+                  return storageStrategy.putBlob(CONTAINER_NAME, blob);
+               }
+            }));
+         }
+         for (Future<String> etag : etags) {
+            assertThat(etag.get()).isNotNull();
+         }
+      } finally {
+         executor.shutdown();
+      }
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null)).containsExactly(BLOB_NAME);
+      // The chunks of the replaced payloads are released, then deleted by the orphan reaper
+      assertThat(storageStrategy.getChunkStatistics().getReferences()).isEqualTo(1);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() + 60000))).isEqualTo(7);
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(1);
+   }
+
+   @Test
+   public void testConcurrentDeduplicatedPutBlob() throws Exception {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_DEDUPLICATION, "true");
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_WRITE_RETRIES, "20");
+      tearDown();
+      createStorageStrategy(overrides);
+
+      final byte[] content = randomByteSource().slice(0, 1024).read();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<String>> etags = Lists.newArrayList();
+         for (int i = 0; i < 8; i++) {
+            // Input stream payloads cannot be read twice, they are retried from a spooled copy
+            final Blob blob = new BlobBuilderImpl().name(BLOB_NAME + i).payload(new ByteArrayInputStream(content)).build();
+            etags.add(executor.submit(new Callable<String>() {
+               @Override
+               public String call() throws IOException {
+                  return storageStrategy.putBlob(CONTAINER_NAME, blob);
+               }
+            }));
+         }
+         for (Future<String> etag : etags) {
+            assertThat(etag.get()).isNotNull();
+         }
+      } finally {
+         executor.shutdown();
+      }
+      ChunkStatistics statistics = storageStrategy.getChunkStatistics();
+      assertThat(statistics.getChunks()).isEqualTo(1);
+      assertThat(statistics.getReferences()).isEqualTo(8);
+   }
+
+   @Test
+   public void testOverwriteBlobWhileReading() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_CHUNK_SIZE, "1024");
+      tearDown();
+      createStorageStrategy(overrides);
+
+      byte[] content = randomByteSource().slice(0, 4 * 1024).read();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      Blob unopened = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         byte[] read = new byte[content.length];
+         ByteStreams.readFully(data, read, 0, 100);
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME)
+               .payload(randomByteSource().slice(0, 1024)).build());
+         // The stream opened before the overwrite keeps reading the chunks of the replaced blob
+         ByteStreams.readFully(data, read, 100, content.length - 100);
+         assertThat(read).isEqualTo(content);
+      } finally {
+         data.close();
+      }
+      // So does a blob read before the overwrite whose payload is only opened afterwards
+      assertThat(ByteStreams.toByteArray(unopened.getPayload().openStream())).isEqualTo(content);
+
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() - 60000))).isZero();
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() + 60000))).isEqualTo(4);
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(1);
+   }
+
+   @Test
+   public void testPutBlobInNotExistingContainer() throws IOException {
+      try {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+         fail("putBlob should have failed");
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isZero();
+   }
+
+   @Test
+   public void testDeleteOrphanChunks() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "-orphan")
+            .payload(randomByteSource().slice(0, 1024)).build());
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() + 60000))).isZero();
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(2);
+
+      // Leaves the chunk of the blob behind, as a write interrupted between storing its data and writing the blob
+      orphanChunks(BLOB_NAME + "-orphan");
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() - 60000))).isZero();
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(2);
+      assertThat(jdbcService.deleteOrphanChunks(new Date(System.currentTimeMillis() + 60000))).isEqualTo(1);
+      assertThat(storageStrategy.getChunkStatistics().getChunks()).isEqualTo(1);
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream()))
+            .hasSize(1024);
+   }
+
+   private void orphanChunks(String key) {
+      UnitOfWork unitOfWork = injector.getInstance(UnitOfWork.class);
+      EntityManager entityManager = injector.getInstance(EntityManager.class);
+      try {
+         entityManager.getTransaction().begin();
+         Long payloadId = entityManager.createQuery("SELECT b.payload.id FROM BlobEntity b WHERE b.key = :key", Long.class)
+               .setParameter("key", key)
+               .getSingleResult();
+         entityManager.createNativeQuery("DELETE FROM PayloadChunks WHERE payload_id = ?1")
+               .setParameter(1, payloadId)
+               .executeUpdate();
+         entityManager.getTransaction().commit();
+      } finally {
+         unitOfWork.end();
+      }
+   }
+
+   @Test
+   public void testGetBlobWithoutContentLength() throws IOException {
+      byte[] content = randomByteSource().slice(0, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE / 2).read();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      // Clears the lengths as they are left by the blobs stored without a content length
+      UnitOfWork unitOfWork = injector.getInstance(UnitOfWork.class);
+      EntityManager entityManager = injector.getInstance(EntityManager.class);
+      try {
+         entityManager.getTransaction().begin();
+         entityManager.createQuery("UPDATE BlobEntity b SET b.size = NULL").executeUpdate();
+         entityManager.createQuery("UPDATE PayloadEntity p SET p.contentLength = NULL").executeUpdate();
+         entityManager.getTransaction().commit();
+      } finally {
+         unitOfWork.end();
+      }
+
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getContentMetadata().getContentLength()).isEqualTo(content.length);
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content);
+      assertThat(storageStrategy.getBlobMetadata(CONTAINER_NAME, BLOB_NAME).getContentMetadata().getContentLength())
+            .isEqualTo(content.length);
+   }
+
+   @Test
+   public void testSegmentChunkStore() throws IOException {
+      File directory = Files.createTempDir();
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_CHUNK_SIZE, String.valueOf(64 * 1024));
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_CHUNK_DIRECTORY, directory.getPath());
+      overrides.setProperty(JdbcConstants.PROPERTY_JDBC_SEGMENT_SIZE, String.valueOf(100 * 1024));
+      tearDown();
+      createStorageStrategy(overrides);
+      try {
+         byte[] content = randomByteSource().slice(0, 200 * 1024).read();
+         assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+         assertThat(directory.list()).hasSize(4);
+
+         Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+         assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content);
+         assertThat(((ByteSource) blob.getPayload().getRawContent()).slice(64 * 1024 - 5, 10).read())
+               .isEqualTo(Arrays.copyOfRange(content, 64 * 1024 - 5, 64 * 1024 + 5));
+
+         // Every segment but the one being written is freed once its chunks are gone
+         storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+         JdbcService jdbcService = injector.getInstance(JdbcService.class);
+         assertThat(jdbcService.reclaimChunkSegments(new Date(System.currentTimeMillis() + 60000))).isEqualTo(3);
+         assertThat(directory.list()).hasSize(1);
+      } finally {
+         injector.getInstance(ChunkStore.class).close();
+         for (File segment : directory.listFiles()) {
+            segment.delete();
+         }
+         directory.delete();
+      }
+   }
+
+   @Test
+   public void testMetrics() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build());
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         ByteStreams.toByteArray(data);
+      } finally {
+         data.close();
+      }
+
+      JdbcMetricsMXBean metrics = (JdbcMetricsMXBean) injector.getInstance(JdbcMetrics.class);
+      assertThat(metrics.getCounters()).containsEntry(JdbcMetrics.BYTES_WRITTEN, 1024L)
+            .containsEntry(JdbcMetrics.CHUNKS_WRITTEN, 1L)
+            .containsEntry(JdbcMetrics.CHUNKS_READ, 1L)
+            .containsEntry(JdbcMetrics.BYTES_READ, 1024L);
+      // Calls between the service methods are timed too
+      assertThat(metrics.getOperationCounts()).containsKeys("JdbcService.createOrModifyBlob",
+            "JdbcService.storePayload", "JdbcService.writeBlob", "JdbcService.findBlobById");
+      assertThat(metrics.getOperationFailures()).containsEntry("JdbcService.createOrModifyBlob", 0L);
+   }
+
     private byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);
@@ -18,7 +18,6 @@ package org.apache.jclouds.profitbricks.rest.compute;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Iterables.contains;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
 import static java.lang.String.format;
@@ -82,12 +81,16 @@ import org.jclouds.rest.ResourceNotFoundException;
 import org.jclouds.util.PasswordGenerator;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
@@ -564,13 +567,32 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
    }
 
    @Override
-   public Iterable<ServerInDataCenter> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<ServerInDataCenter>() {
-         @Override
-         public boolean apply(ServerInDataCenter server) {
-            return contains(ids, server.slashEncode());
+   public Iterable<ServerInDataCenter> listNodesByIds(Iterable<String> ids) {
+      // Fetch only the requested servers instead of listing every data center
+      Multimap<String, String> serverIdsByDataCenter = LinkedHashMultimap.create();
+      for (String id : ids) {
+         try {
+            DataCenterAndId datacenterAndId = DataCenterAndId.fromSlashEncoded(id);
+            serverIdsByDataCenter.put(datacenterAndId.getDataCenter(), datacenterAndId.getId());
+         } catch (IllegalArgumentException ex) {
+            logger.trace(">> skipping invalid server id=%s", id);
          }
-      });
+      }
+
+      List<ListenableFuture<ServerInDataCenter>> servers = Lists.newArrayList();
+      for (Map.Entry<String, String> entry : serverIdsByDataCenter.entries()) {
+         final String dataCenterId = entry.getKey();
+         final String serverId = entry.getValue();
+         servers.add(executorService.submit(new Callable<ServerInDataCenter>() {
+            @Override
+            public ServerInDataCenter call() throws Exception {
+               logger.trace("<< fetching server with id=%s in datacenter %s", serverId, dataCenterId);
+               Server server = api.serverApi().getServer(dataCenterId, serverId, new DepthOptions().depth(4));
+               return server == null ? null : new ServerInDataCenter(server, dataCenterId);
+            }
+         }));
+      }
+      return ImmutableList.copyOf(filter(getUnchecked(Futures.allAsList(servers)), Predicates.notNull()));
    }
 
    private void destroyServer(final String serverId, final String dataCenterId) {
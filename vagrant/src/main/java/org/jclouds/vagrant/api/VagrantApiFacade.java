@@ -19,6 +19,7 @@ package org.jclouds.vagrant.api;
 import java.io.File;
 
 import org.jclouds.domain.LoginCredentials;
+import org.jclouds.vagrant.domain.ProvisionerOutput;
 
 public interface VagrantApiFacade {
    interface Factory {
@@ -28,9 +29,9 @@ public interface VagrantApiFacade {
    /**
     * Start the named machine
     * 
-    * @return the raw output of the configured provisioners
+    * @return the networks and hostname reported by the configured provisioners
     */
-   String up(String machineName, String provider);
+   ProvisionerOutput up(String machineName, String provider);
    void halt(String machineName);
    void destroy(String machineName);
    LoginCredentials sshConfig(String machineName);
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,7 +39,9 @@ import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.Volume;
 import org.jclouds.compute.domain.Volume.Type;
+import org.jclouds.compute.strategy.PrioritizeCredentialsFromTemplate;
 import org.jclouds.compute.util.AutomaticHardwareIdSpec;
+import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
@@ -46,18 +49,19 @@ import org.jclouds.domain.LoginCredentials;
 import org.jclouds.location.suppliers.all.JustProvider;
 import org.jclouds.logging.Logger;
 import org.jclouds.vagrant.api.VagrantApiFacade;
+import org.jclouds.vagrant.domain.ProvisionerOutput;
 import org.jclouds.vagrant.domain.VagrantNode;
 import org.jclouds.vagrant.internal.MachineConfig;
 import org.jclouds.vagrant.internal.VagrantNodeRegistry;
+import org.jclouds.vagrant.internal.VagrantProvisioningScheduler;
 import org.jclouds.vagrant.reference.VagrantConstants;
 import org.jclouds.vagrant.util.VagrantUtils;
 
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<VagrantNode, Hardware, Image, Location> {
@@ -70,29 +74,38 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
    private final File home;
    private final JustProvider locationSupplier;
    private final VagrantNodeRegistry nodeRegistry;
+   private final VagrantProvisioningScheduler scheduler;
    private final MachineConfig.Factory machineConfigFactory;
    private final VagrantApiFacade.Factory cliFactory;
    private final Supplier<? extends Map<String, Hardware>> hardwareSupplier;
    private final Supplier<Collection<Image>> imageListSupplier;
    private final Function<String, Image> imageIdToImage;
+   private final PrioritizeCredentialsFromTemplate prioritizeCredentialsFromTemplate;
+   private final Map<String, Credentials> credentialStore;
 
    @Inject
    VagrantComputeServiceAdapter(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
          JustProvider locationSupplier,
          VagrantNodeRegistry nodeRegistry,
+         VagrantProvisioningScheduler scheduler,
          MachineConfig.Factory machineConfigFactory,
          VagrantApiFacade.Factory cliFactory,
          Supplier<? extends Map<String, Hardware>> hardwareSupplier,
          Supplier<Collection<Image>> imageListSupplier,
-         Function<String, Image> imageIdToImage) {
+         Function<String, Image> imageIdToImage,
+         PrioritizeCredentialsFromTemplate prioritizeCredentialsFromTemplate,
+         Map<String, Credentials> credentialStore) {
       this.home = new File(home);
       this.locationSupplier = locationSupplier;
       this.nodeRegistry = nodeRegistry;
+      this.scheduler = scheduler;
       this.machineConfigFactory = machineConfigFactory;
       this.cliFactory = cliFactory;
       this.hardwareSupplier = hardwareSupplier;
       this.imageListSupplier = imageListSupplier;
       this.imageIdToImage = imageIdToImage;
+      this.prioritizeCredentialsFromTemplate = prioritizeCredentialsFromTemplate;
+      this.credentialStore = credentialStore;
       this.home.mkdirs();
    }
 
@@ -101,20 +114,31 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String machineName = removeFromStart(name, group);
       File nodePath = new File(home, group);
 
-      init(nodePath, machineName, template);
-
-      NodeAndInitialCredentials<VagrantNode> node = startMachine(nodePath, group, machineName,
-            template.getImage(), template.getHardware());
-      nodeRegistry.add(node.getNode());
-      return node;
+      String id = group + "/" + machineName;
+      nodeRegistry.markInFlight(id);
+      try {
+         init(nodePath, group, machineName, template);
+
+         NodeAndInitialCredentials<VagrantNode> node = startMachine(nodePath, group, machineName,
+               template.getImage(), template.getHardware());
+         nodeRegistry.add(node.getNode());
+         // AdaptingComputeServiceStrategies only saves the credentials once the node has settled, lookups waiting
+         // for the node must find them
+         LoginCredentials credentials = prioritizeCredentialsFromTemplate.apply(template, node.getCredentials());
+         if (credentials != null) {
+            credentialStore.put("node#" + id, credentials);
+         }
+         return node;
+      } finally {
+         nodeRegistry.markSettled(id);
+      }
    }
 
    private NodeAndInitialCredentials<VagrantNode> startMachine(File path, String group, String name, Image image, Hardware hardware) {
       String provider = image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
 
       VagrantApiFacade vagrant = cliFactory.create(path);
-      String rawOutput = vagrant.up(name, provider);
-      String output = normalizeOutput(name, rawOutput);
+      ProvisionerOutput output = up(vagrant, name, provider);
 
       OsFamily osFamily = image.getOperatingSystem().getFamily();
       String id = group + "/" + name;
@@ -136,18 +160,10 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       }
 
       // PrioritizeCredentialsFromTemplate will overwrite loginCredentials with image credentials
-      // AdaptingComputeServiceStrategies saves the merged credentials in credentialStore
+      // the merged credentials are saved in credentialStore before the node settles
       return new NodeAndInitialCredentials<VagrantNode>(node, node.id(), loginCredentials);
    }
 
-   private String normalizeOutput(String name, String output) {
-      return output
-            .replaceAll("(?m)^([^,]*,){4}", "")
-            .replace("==> " + name + ": ", "")
-            // Vagrant shows some of the \n verbatim in provisioning command results.
-            .replace("\\n", "\n");
-   }
-
    private Pattern getOsInterfacePattern(OsFamily osFamily) {
       if (osFamily == OsFamily.WINDOWS) {
          return PATTERN_IPCONFIG;
@@ -156,11 +172,8 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       }
    }
 
-   private Collection<String> getNetworks(String output, Pattern ifPattern) {
-      String networks = getDelimitedString(
-            output,
-            VagrantConstants.DELIMITER_NETWORKS_START,
-            VagrantConstants.DELIMITER_NETWORKS_END);
+   private Collection<String> getNetworks(ProvisionerOutput output, Pattern ifPattern) {
+      String networks = checkDelimited(output.networks(), VagrantConstants.DELIMITER_NETWORKS_START, output);
       Matcher m = ifPattern.matcher(networks);
       Collection<String> ips = new ArrayList<String>();
       while (m.find()) {
@@ -170,32 +183,42 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       return ips;
    }
 
-   private String getHostname(String output) {
-      return getDelimitedString(
-            output,
-            VagrantConstants.DELIMITER_HOSTNAME_START,
-            VagrantConstants.DELIMITER_HOSTNAME_END);
+   private String getHostname(ProvisionerOutput output) {
+      return checkDelimited(output.hostname(), VagrantConstants.DELIMITER_HOSTNAME_START, output);
    }
 
-   private String getDelimitedString(String value, String delimStart, String delimEnd) {
-      int startPos = value.indexOf(delimStart);
-      int endPos = value.indexOf(delimEnd);
-      if (startPos == -1) {
-         throw new IllegalStateException("Delimiter " + delimStart + " not found in output \n" + value);
+   private String checkDelimited(String value, String delimStart, ProvisionerOutput output) {
+      if (value == null) {
+         throw new IllegalStateException("Delimited section " + delimStart + " not found in output \n" + output.tail());
       }
-      if (endPos == -1) {
-         throw new IllegalStateException("Delimiter " + delimEnd + " not found in output \n" + value);
-      }
-      return value.substring(startPos + delimStart.length(), endPos).trim();
+      return value;
+   }
+
+   private ProvisionerOutput up(final VagrantApiFacade vagrant, final String name, final String provider) {
+      return scheduler.start(new Supplier<ProvisionerOutput>() {
+         @Override
+         public ProvisionerOutput get() {
+            return vagrant.up(name, provider);
+         }
+      });
    }
 
-   private void init(File path, String name, Template template) {
+   private void init(File path, String group, String name, Template template) {
+      Lock lock = scheduler.groupLock(group);
+      lock.lock();
       try {
-         writeVagrantfile(path);
+         // The Vagrantfile is shared by the machines of the group, it's written once per process so it's kept
+         // up to date with the provider
+         if (scheduler.markInitialized(group) || !new File(path, VagrantConstants.VAGRANTFILE).isFile()) {
+            writeVagrantfile(path);
+         }
          initMachineConfig(path, name, template);
       } catch (IOException e) {
+         scheduler.markDeleted(group);
          throw new IllegalStateException("Unable to initialize Vagrant configuration at " +
                path + " for machine " + name, e);
+      } finally {
+         lock.unlock();
       }
    }
 
@@ -269,21 +292,14 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
    @Override
    public VagrantNode getNode(String id) {
       // needed for BaseComputeServiceLiveTest.testAScriptExecutionAfterBootWithBasicTemplate()
-      // waits for the thread updating the credentialStore to execute
-      try {
-         Thread.sleep(200);
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt();
-         throw Throwables.propagate(e);
-      }
-
-      return nodeRegistry.get(id);
+      // waits for the thread updating the credentialStore to finish if the update is in progress
+      return nodeRegistry.getSettled(id);
    }
 
    @Override
    public void destroyNode(String id) {
       VagrantNode node = nodeRegistry.get(id);
-      node.setMachineState(Status.TERMINATED);
+      nodeRegistry.setMachineState(node, Status.TERMINATED);
       getMachine(node).destroy(node.name());
       nodeRegistry.onTerminated(node);
       deleteMachine(node);
@@ -293,12 +309,19 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       File nodeFolder = node.path();
       File machinesFolder = new File(nodeFolder, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
       String filePattern = node.name() + ".";
-      logger.debug("Deleting machine %s", node.id());
-      VagrantUtils.deleteFiles(machinesFolder, filePattern);
-      // No more machines in this group, remove everything
-      if (machinesFolder.list().length == 0) {
-         logger.debug("Machine %s is last in group, deleting Vagrant folder %s", node.id(), nodeFolder.getAbsolutePath());
-         VagrantUtils.deleteFolder(nodeFolder);
+      Lock lock = scheduler.groupLock(node.group());
+      lock.lock();
+      try {
+         logger.debug("Deleting machine %s", node.id());
+         VagrantUtils.deleteFiles(machinesFolder, filePattern);
+         // No more machines in this group, remove everything
+         if (machinesFolder.list().length == 0) {
+            logger.debug("Machine %s is last in group, deleting Vagrant folder %s", node.id(), nodeFolder.getAbsolutePath());
+            VagrantUtils.deleteFolder(nodeFolder);
+            scheduler.markDeleted(node.group());
+         }
+      } finally {
+         lock.unlock();
       }
    }
 
@@ -310,8 +333,8 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String provider = node.image().getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
       String name = node.name();
       VagrantApiFacade vagrant = getMachine(node);
-      vagrant.up(name, provider);
-      node.setMachineState(Status.RUNNING);
+      up(vagrant, name, provider);
+      nodeRegistry.setMachineState(node, Status.RUNNING);
    }
 
    private void halt(String id) {
@@ -321,7 +344,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
 
       try {
          vagrant.halt(name);
-         node.setMachineState(Status.SUSPENDED);
+         nodeRegistry.setMachineState(node, Status.SUSPENDED);
       } catch (IllegalStateException e) {
          logger.warn(e, "Failed graceful shutdown of machine " + id + ". Will try to halt it forcefully instead.");
          vagrant.haltForced(name);
@@ -334,15 +357,15 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String provider = node.image().getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
       String name = node.name();
       VagrantApiFacade vagrant = getMachine(node);
-      vagrant.up(name, provider);
-      node.setMachineState(Status.RUNNING);
+      up(vagrant, name, provider);
+      nodeRegistry.setMachineState(node, Status.RUNNING);
    }
 
    @Override
    public void suspendNode(String id) {
       halt(id);
       VagrantNode node = nodeRegistry.get(id);
-      node.setMachineState(Status.SUSPENDED);
+      nodeRegistry.setMachineState(node, Status.SUSPENDED);
    }
 
    @Override
@@ -351,13 +374,15 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
    }
 
    @Override
-   public Iterable<VagrantNode> listNodesByIds(final Iterable<String> ids) {
-      return Iterables.filter(listNodes(), new Predicate<VagrantNode>() {
-         @Override
-         public boolean apply(VagrantNode input) {
-            return Iterables.contains(ids, input.id());
+   public Iterable<VagrantNode> listNodesByIds(Iterable<String> ids) {
+      List<VagrantNode> nodes = new ArrayList<VagrantNode>();
+      for (String id : ImmutableSet.copyOf(ids)) {
+         VagrantNode node = nodeRegistry.get(id);
+         if (node != null) {
+            nodes.add(node);
          }
-      });
+      }
+      return nodes;
    }
 
    private VagrantApiFacade getMachine(VagrantNode node) {
@@ -71,8 +71,13 @@ public class PersistVagrantCredentialsModule extends AbstractModule {
          if (credentials != null) {
             LoginCredentials creds = LoginCredentials.fromCredentials(credentials);
             input = NodeMetadataBuilder.fromNodeMetadata(input).credentials(creds).build();
-            credentialStore.put("node#" + input.getId(), input.getCredentials());
-            updateMachine(input.getId(), creds);
+            vagrantNodeRegistry.markInFlight(input.getId());
+            try {
+               credentialStore.put("node#" + input.getId(), input.getCredentials());
+               updateMachine(input.getId(), creds);
+            } finally {
+               vagrantNodeRegistry.markSettled(input.getId());
+            }
          }
          return input;
       }
@@ -120,12 +125,17 @@ public class PersistVagrantCredentialsModule extends AbstractModule {
 
       @Override
       public NodeMetadata apply(NodeMetadata input) {
-         input = super.apply(input);
-         if (input.getCredentials() != null) {
-            credentialStore.put("node#" + input.getId(), input.getCredentials());
-            updateMachine(input.getId(), input.getCredentials());
+         vagrantNodeRegistry.markInFlight(input.getId());
+         try {
+            input = super.apply(input);
+            if (input.getCredentials() != null) {
+               credentialStore.put("node#" + input.getId(), input.getCredentials());
+               updateMachine(input.getId(), input.getCredentials());
+            }
+            return input;
+         } finally {
+            vagrantNodeRegistry.markSettled(input.getId());
          }
-         return input;
       }
 
    }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.domain;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * The information reported by the provisioners of the Vagrantfile while the machine was starting.
+ */
+@AutoValue
+public abstract class ProvisionerOutput {
+
+   /**
+    * @return the interface listing of the machine or null if the provisioners didn't report it
+    */
+   @Nullable
+   public abstract String networks();
+
+   /**
+    * @return the hostname of the machine or null if the provisioners didn't report it
+    */
+   @Nullable
+   public abstract String hostname();
+
+   /**
+    * @return the last lines of the output, for error reporting
+    */
+   public abstract String tail();
+
+   public static ProvisionerOutput create(@Nullable String networks, @Nullable String hostname, String tail) {
+      return new AutoValue_ProvisionerOutput(networks, hostname, tail);
+   }
+
+}
@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
@@ -34,22 +35,17 @@ public class BoxConfig {
    public static class Factory {
       public BoxConfig newInstance(Image image) {
          String provider = image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
-         return new BoxConfig(getVagrantHome(), image.getName(), image.getVersion(), provider);
+         return new BoxConfig(VagrantUtils.getVagrantHome(), image.getName(), image.getVersion(), provider);
       }
 
       public BoxConfig newInstance(Box box) {
-         return this.newInstance(getVagrantHome(), box);
+         return this.newInstance(VagrantUtils.getVagrantHome(), box);
       }
 
       public BoxConfig newInstance(File vagrantHome, Box box) {
          return new BoxConfig(vagrantHome, box.getName(), box.getVersion(), box.getProvider());
       }
 
-      private File getVagrantHome() {
-         Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
-         return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
-      }
-
    }
 
    private String config;
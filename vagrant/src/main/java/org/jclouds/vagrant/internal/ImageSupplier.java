@@ -16,40 +16,111 @@
  */
 package org.jclouds.vagrant.internal;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
+/**
+ * Lists the latest version of each box. "vagrant box list" is only executed again after the boxes
+ * folder changes - a box, version or provider added or removed. Changes are detected by comparing
+ * the names and modification times of the folders up to the provider level, which only takes a few
+ * stat calls compared to the several seconds spent by the command.
+ */
+@Singleton
 public class ImageSupplier<B> implements Supplier<Collection<Image>>, Function<String, Image> {
+   private static final int FINGERPRINT_DEPTH = 3;
+
    private final Function<Collection<B>, Collection<B>> outdatedBoxesFilter;
    private final VagrantBoxApiFacade.Factory<B> cliFactory;
    private final Function<B, Image> boxToImage;
+   private final File boxes;
+
+   private List<String> fingerprint;
+   private Map<String, Image> images;
 
    @Inject
    ImageSupplier(Function<Collection<B>, Collection<B>> outdatedBoxesFilter,
          VagrantBoxApiFacade.Factory<B> cliFactory,
          Function<B, Image> boxToImage) {
+      this(outdatedBoxesFilter, cliFactory, boxToImage,
+            new File(VagrantUtils.getVagrantHome(), VagrantConstants.VAGRANT_BOXES_SUBFOLDER));
+   }
+
+   ImageSupplier(Function<Collection<B>, Collection<B>> outdatedBoxesFilter,
+         VagrantBoxApiFacade.Factory<B> cliFactory,
+         Function<B, Image> boxToImage,
+         File boxes) {
       this.outdatedBoxesFilter = outdatedBoxesFilter;
       this.cliFactory = cliFactory;
       this.boxToImage = boxToImage;
+      this.boxes = boxes;
    }
 
    @Override
    public Collection<Image> get() {
-      Collection<B> boxes = outdatedBoxesFilter.apply(cliFactory.create().listBoxes());
-      return Collections2.transform(boxes, boxToImage);
+      return images().values();
    }
 
    @Override
    public Image apply(String id) {
-      B box = cliFactory.create().getBox(id);
-      return boxToImage.apply(box);
+      return images().get(id);
+   }
+
+   private synchronized Map<String, Image> images() {
+      List<String> current = fingerprint();
+      if (images == null || !current.equals(fingerprint)) {
+         images = listImages();
+         fingerprint = current;
+      }
+      return images;
+   }
+
+   private Map<String, Image> listImages() {
+      Collection<B> boxes = outdatedBoxesFilter.apply(cliFactory.create().listBoxes());
+      Map<String, Image> images = Maps.newLinkedHashMap();
+      for (B box : boxes) {
+         Image image = boxToImage.apply(box);
+         images.put(image.getId(), image);
+      }
+      return ImmutableMap.copyOf(images);
+   }
+
+   private List<String> fingerprint() {
+      List<String> fingerprint = Lists.newArrayList();
+      addFingerprint(fingerprint, boxes, 0);
+      return fingerprint;
+   }
+
+   private static void addFingerprint(List<String> fingerprint, File folder, int depth) {
+      fingerprint.add(folder.getPath() + ":" + folder.lastModified());
+      if (depth == FINGERPRINT_DEPTH) {
+         return;
+      }
+      File[] children = folder.listFiles();
+      if (children == null) {
+         return;
+      }
+      for (File child : Ordering.natural().sortedCopy(Arrays.asList(children))) {
+         if (child.isDirectory()) {
+            addFingerprint(fingerprint, child, depth + 1);
+         }
+      }
    }
 
 }
@@ -24,6 +24,7 @@ import java.util.Collection;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.vagrant.api.VagrantApiFacade;
 import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.domain.ProvisionerOutput;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
@@ -54,8 +55,8 @@ public class VagrantCliFacade implements VagrantApiFacade, VagrantBoxApiFacade<B
    }
 
    @Override
-   public String up(String machineName, String provider) {
-      outputRecorder.record();
+   public ProvisionerOutput up(String machineName, String provider) {
+      outputRecorder.record(machineName);
       vagrant.up(machineName, provider);
       return outputRecorder.stopRecording();
    }
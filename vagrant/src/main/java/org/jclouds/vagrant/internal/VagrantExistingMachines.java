@@ -27,6 +27,9 @@ import javax.inject.Named;
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
 import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.util.AutomaticHardwareIdSpec;
@@ -36,10 +39,18 @@ import org.jclouds.vagrant.reference.VagrantConstants;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+/**
+ * Loads the machines created by previous runs. They are read from the {@link VagrantNodeIndex}, only
+ * when it's missing are the machine configs scanned and the boxes listed, after which the index is
+ * written so the next start can use it.
+ */
 public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>> {
    @Resource
    protected Logger logger = Logger.NULL;
@@ -48,20 +59,97 @@ public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>
    private final MachineConfig.Factory machineConfigFactory;
    private final Supplier<Collection<Image>> imageLister;
    private final Supplier<? extends Map<String, Hardware>> hardwareSupplier;
+   private final VagrantNodeIndex index;
 
    @Inject
    VagrantExistingMachines(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
          MachineConfig.Factory machineConfigFactory,
          Supplier<Collection<Image>> imageLister,
-         Supplier<? extends Map<String, Hardware>> hardwareSupplier) {
+         Supplier<? extends Map<String, Hardware>> hardwareSupplier,
+         VagrantNodeIndex index) {
       this.home = new File(home);
       this.machineConfigFactory = machineConfigFactory;
       this.imageLister = imageLister;
       this.hardwareSupplier = hardwareSupplier;
+      this.index = index;
    }
 
    @Override
    public Collection<VagrantNode> get() {
+      if (index.exists()) {
+         return loadIndex();
+      }
+      Collection<VagrantNode> nodes = scanMachines();
+      for (VagrantNode node : nodes) {
+         index.put(node);
+      }
+      return nodes;
+   }
+
+   private Collection<VagrantNode> loadIndex() {
+      Collection<VagrantNode> nodes = Lists.newArrayList();
+      for (Map.Entry<String, Map<String, String>> entry : index.load().entrySet()) {
+         String id = entry.getKey();
+         try {
+            VagrantNode node = createMachine(id, entry.getValue());
+            if (node != null) {
+               nodes.add(node);
+            } else {
+               index.remove(id);
+            }
+         } catch (RuntimeException e) {
+            logger.debug("Failed loading machine " + id + " from the node index. Skipping.", e);
+         }
+      }
+      return nodes;
+   }
+
+   private VagrantNode createMachine(String id, Map<String, String> entry) {
+      int separator = id.indexOf('/');
+      String groupName = id.substring(0, separator);
+      String machineName = id.substring(separator + 1);
+      File group = new File(home, groupName);
+      File machine = new File(new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER),
+            machineName + VagrantConstants.MACHINES_CONFIG_EXTENSION);
+      if (!machine.isFile()) {
+         // Deleted outside of jclouds or by a process which didn't update the index
+         logger.debug("Skipping machine " + id + " because its config " + machine.getAbsolutePath() + " no longer exists.");
+         return null;
+      }
+      VagrantNode node = VagrantNode.builder()
+            .setPath(group)
+            .setId(id)
+            .setGroup(groupName)
+            .setName(machineName)
+            .setImage(getImage(entry))
+            .setHardware(getHardware(id, entry))
+            .setNetworks(ImmutableList.copyOf(Splitter.on(',').omitEmptyStrings()
+                  .split(Strings.nullToEmpty(entry.get(VagrantNodeIndex.FIELD_NETWORKS)))))
+            .setHostname(Strings.isNullOrEmpty(entry.get(VagrantNodeIndex.FIELD_HOSTNAME))
+                  ? "unknown" : entry.get(VagrantNodeIndex.FIELD_HOSTNAME))
+            .build();
+      node.setMachineState(VagrantNodeIndex.parseState(entry.get(VagrantNodeIndex.FIELD_STATE)));
+      return node;
+   }
+
+   // Same as BoxToImage, except for the data coming from the index instead of the box
+   private Image getImage(Map<String, String> entry) {
+      String name = entry.get(VagrantNodeIndex.FIELD_BOX);
+      String version = Strings.emptyToNull(entry.get(VagrantNodeIndex.FIELD_BOX_VERSION));
+      OsFamily osFamily = OsFamily.fromValue(entry.get(VagrantNodeIndex.FIELD_OS_FAMILY));
+      OperatingSystem os = new OperatingSystem(osFamily, name, version, null, name, true);
+      return new ImageBuilder()
+            .ids(name)
+            .name(name)
+            .version(version)
+            .operatingSystem(os)
+            .status(Image.Status.AVAILABLE)
+            .userMetadata(ImmutableMap.of(VagrantConstants.USER_META_PROVIDER,
+                  Strings.nullToEmpty(entry.get(VagrantNodeIndex.FIELD_PROVIDER))))
+            .build();
+   }
+
+   private Collection<VagrantNode> scanMachines() {
       File[] groups = home.listFiles();
       if (groups == null) return ImmutableList.of();
       Map<String, Image> images = getImages();
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.util.AutomaticHardwareIdSpec;
+import org.jclouds.util.Closeables2;
+import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.reference.VagrantConstants;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the information needed to list the machines in a single file in the home folder so it's
+ * available after a restart without listing the boxes or asking Vagrant for each machine. The box,
+ * hardware, state, hostname and IPs of each machine are updated as the machines are created, halted,
+ * started and destroyed. Vagrant commands are synchronous so the states are accurate as long as the
+ * machines are only managed through jclouds.
+ * <p>
+ * Entries are stored as properties keyed by {@code <machine id>.<field>}.
+ */
+@Singleton
+public class VagrantNodeIndex {
+   public static final String FIELD_BOX = "box";
+   public static final String FIELD_BOX_VERSION = "boxVersion";
+   public static final String FIELD_PROVIDER = "provider";
+   public static final String FIELD_OS_FAMILY = VagrantConstants.CONFIG_OS_FAMILY;
+   public static final String FIELD_HARDWARE_ID = VagrantConstants.CONFIG_HARDWARE_ID;
+   public static final String FIELD_CPUS = VagrantConstants.CONFIG_CPUS;
+   public static final String FIELD_MEMORY = VagrantConstants.CONFIG_MEMORY;
+   public static final String FIELD_STATE = "state";
+   public static final String FIELD_HOSTNAME = "hostname";
+   public static final String FIELD_NETWORKS = "networks";
+
+   private final File indexFile;
+   private Properties entries;
+
+   @Inject
+   VagrantNodeIndex(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home) {
+      this.indexFile = new File(home, VagrantConstants.NODE_INDEX_FILE);
+   }
+
+   /**
+    * @return false if the index was never written, i.e. the machines were created by an older version
+    */
+   public synchronized boolean exists() {
+      return entries != null || indexFile.isFile();
+   }
+
+   /**
+    * @return the fields of each machine, keyed by the machine id
+    */
+   public synchronized Map<String, Map<String, String>> load() {
+      Map<String, Map<String, String>> result = Maps.newLinkedHashMap();
+      Properties entries = entries();
+      for (String key : entries.stringPropertyNames()) {
+         int separator = key.lastIndexOf('.');
+         if (separator == -1) continue;
+         String id = key.substring(0, separator);
+         Map<String, String> entry = result.get(id);
+         if (entry == null) {
+            entry = Maps.newHashMap();
+            result.put(id, entry);
+         }
+         entry.put(key.substring(separator + 1), entries.getProperty(key));
+      }
+      return result;
+   }
+
+   public synchronized void put(VagrantNode node) {
+      Properties entries = entries();
+      removeEntry(entries, node.id());
+      for (Map.Entry<String, String> field : toEntry(node).entrySet()) {
+         entries.setProperty(node.id() + "." + field.getKey(), field.getValue());
+      }
+      store(entries);
+   }
+
+   public synchronized void remove(String id) {
+      Properties entries = entries();
+      if (removeEntry(entries, id)) {
+         store(entries);
+      }
+   }
+
+   private static boolean removeEntry(Properties entries, String id) {
+      String prefix = id + ".";
+      boolean removed = false;
+      for (String key : entries.stringPropertyNames()) {
+         if (key.startsWith(prefix) && key.indexOf('.', prefix.length()) == -1) {
+            entries.remove(key);
+            removed = true;
+         }
+      }
+      return removed;
+   }
+
+   private static Map<String, String> toEntry(VagrantNode node) {
+      Image image = node.image();
+      Hardware hardware = node.hardware();
+      ImmutableMap.Builder<String, String> entry = ImmutableMap.builder();
+      entry.put(FIELD_BOX, image.getId());
+      entry.put(FIELD_BOX_VERSION, Strings.nullToEmpty(image.getVersion()));
+      entry.put(FIELD_PROVIDER, Strings.nullToEmpty(image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER)));
+      entry.put(FIELD_OS_FAMILY, image.getOperatingSystem().getFamily().value());
+      if (AutomaticHardwareIdSpec.isAutomaticId(hardware.getId())) {
+         entry.put(FIELD_HARDWARE_ID, VagrantConstants.MACHINES_AUTO_HARDWARE);
+      } else {
+         entry.put(FIELD_HARDWARE_ID, hardware.getId());
+      }
+      double cpus = 0;
+      for (Processor processor : hardware.getProcessors()) {
+         cpus += processor.getCores();
+      }
+      entry.put(FIELD_CPUS, Double.toString(cpus));
+      entry.put(FIELD_MEMORY, Integer.toString(hardware.getRam()));
+      entry.put(FIELD_STATE, node.machineState().name());
+      entry.put(FIELD_HOSTNAME, node.hostname());
+      entry.put(FIELD_NETWORKS, Joiner.on(',').join(node.networks()));
+      return entry.build();
+   }
+
+   private Properties entries() {
+      if (entries == null) {
+         entries = read();
+      }
+      return entries;
+   }
+
+   private Properties read() {
+      Properties properties = new Properties();
+      Reader in;
+      try {
+         in = new InputStreamReader(new FileInputStream(indexFile), Charsets.UTF_8);
+      } catch (FileNotFoundException e) {
+         return properties;
+      }
+      try {
+         properties.load(in);
+      } catch (IOException e) {
+         throw new IllegalStateException("Failed loading node index " + indexFile.getAbsolutePath(), e);
+      } finally {
+         Closeables2.closeQuietly(in);
+      }
+      return properties;
+   }
+
+   // Written to a temporary file first so a crash never leaves a truncated index behind
+   private void store(Properties properties) {
+      File parent = indexFile.getParentFile();
+      if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+         throw new IllegalStateException("Failure creating folder " + parent.getAbsolutePath());
+      }
+      File tmp = new File(parent, indexFile.getName() + ".tmp");
+      Writer out = null;
+      try {
+         out = new OutputStreamWriter(new FileOutputStream(tmp), Charsets.UTF_8);
+         properties.store(out, null);
+         out.close();
+         out = null;
+         Files.move(tmp, indexFile);
+      } catch (IOException e) {
+         throw new IllegalStateException("Failed writing node index " + indexFile.getAbsolutePath(), e);
+      } finally {
+         if (out != null) {
+            Closeables2.closeQuietly(out);
+         }
+      }
+   }
+
+   static Status parseState(String state) {
+      if (state == null) {
+         return Status.UNRECOGNIZED;
+      }
+      try {
+         return Status.valueOf(state);
+      } catch (IllegalArgumentException e) {
+         return Status.UNRECOGNIZED;
+      }
+   }
+}
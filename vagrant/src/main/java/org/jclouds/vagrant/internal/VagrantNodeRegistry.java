@@ -19,11 +19,16 @@ package org.jclouds.vagrant.internal;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
+import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.vagrant.domain.VagrantNode;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -86,6 +91,14 @@ import com.google.inject.Singleton;
  * commands for quite a while.
  * Possible improvements: time out the status value, refreshing it after some period on request
  * <p>
+ * Lookups by the compute service wait for nodes which are still being created or having their credentials
+ * persisted, so the credentials are visible to the caller as soon as the update completes. A node being created
+ * settles only once its initial credentials are in the credential store.
+ * <p>
+ * Hostname, IPs and state of the machines are persisted in the {@link VagrantNodeIndex} on every change
+ * so they survive restarts, and the machine list is read back from it instead of scanning the machine
+ * configs and listing the boxes.
+ * <p>
  * The registry allows us to really streamline machine creation. All it takes is a single
  * "vagrant up". It needs around a minute to return a usable machine (obviously depends on the
  * image and is dominated by OS boot). Whereas before introducing the registry it would take
@@ -117,19 +130,88 @@ public class VagrantNodeRegistry {
 
    }
 
+   // Nodes being created or having their credentials updated
+   private static class InFlight {
+      private final SettableFuture<Void> settled = SettableFuture.create();
+      private int updates;
+   }
+
    private final Supplier<Map<String, VagrantNode>> nodes;
+   private final VagrantNodeIndex index;
+   private final Map<String, InFlight> inFlight = Maps.newHashMap();
 
    @Inject
-   VagrantNodeRegistry(Supplier<Collection<VagrantNode>> existingMachines) {
+   VagrantNodeRegistry(Supplier<Collection<VagrantNode>> existingMachines, VagrantNodeIndex index) {
       this.nodes = Suppliers.memoize(new ConcurrentWrapperSupplier(existingMachines));
+      this.index = index;
    }
 
    public VagrantNode get(String id) {
       return nodes().get(id);
    }
 
+   /**
+    * Same as {@link #get(String)}, except that it waits for the node to be created and for its credentials
+    * to be persisted if either is in progress. Returns immediately for all other nodes.
+    */
+   public VagrantNode getSettled(String id) {
+      SettableFuture<Void> settled;
+      synchronized (inFlight) {
+         InFlight node = inFlight.get(id);
+         settled = node != null ? node.settled : null;
+      }
+      if (settled != null) {
+         try {
+            settled.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+         }
+      }
+      return get(id);
+   }
+
+   /**
+    * Marks the node as being updated, {@link #getSettled(String)} waits until a matching
+    * {@link #markSettled(String)} call. Calls can be nested.
+    */
+   public void markInFlight(String id) {
+      synchronized (inFlight) {
+         InFlight node = inFlight.get(id);
+         if (node == null) {
+            node = new InFlight();
+            inFlight.put(id, node);
+         }
+         node.updates++;
+      }
+   }
+
+   public void markSettled(String id) {
+      SettableFuture<Void> settled = null;
+      synchronized (inFlight) {
+         InFlight node = inFlight.get(id);
+         if (node != null && --node.updates == 0) {
+            inFlight.remove(id);
+            settled = node.settled;
+         }
+      }
+      if (settled != null) {
+         settled.set(null);
+      }
+   }
+
    public void add(VagrantNode node) {
       nodes().put(node.id(), node);
+      index.put(node);
+   }
+
+   public void setMachineState(VagrantNode node, Status machineState) {
+      node.setMachineState(machineState);
+      if (nodes().containsKey(node.id())) {
+         index.put(node);
+      }
    }
 
    public Collection<VagrantNode> list() {
@@ -138,6 +220,7 @@ public class VagrantNodeRegistry {
 
    public void onTerminated(VagrantNode node) {
       nodes().remove(node.id());
+      index.remove(node.id());
    }
 
    private Map<String, VagrantNode> nodes() {
@@ -16,44 +16,185 @@
  */
 package org.jclouds.vagrant.internal;
 
+import org.jclouds.vagrant.domain.ProvisionerOutput;
+import org.jclouds.vagrant.reference.VagrantConstants;
+
 import vagrant.api.CommandIOListener;
 
+/**
+ * Parses the machine readable output of "vagrant up" as it streams, picking the networks and hostname
+ * sections printed by the provisioners as soon as their end delimiter is seen. Only those sections and
+ * the last few KB of output are kept, regardless of how verbose the provisioning is.
+ */
 public class VagrantOutputRecorder implements CommandIOListener {
+   static final int MAX_LINE_LENGTH = 64 * 1024;
+   static final int MAX_SECTION_LENGTH = 64 * 1024;
+   static final int MAX_TAIL_LENGTH = 8 * 1024;
+
+   private static final int MACHINE_READABLE_FIELDS = 4;
 
    private CommandIOListener next;
-   private StringBuilder output = new StringBuilder();
    private boolean isRecording;
+   private String machineName;
+   private final StringBuilder line = new StringBuilder();
+   private boolean lineContinued;
+   private final StringBuilder tail = new StringBuilder();
+   private final Section networks = new Section(
+         VagrantConstants.DELIMITER_NETWORKS_START, VagrantConstants.DELIMITER_NETWORKS_END);
+   private final Section hostname = new Section(
+         VagrantConstants.DELIMITER_HOSTNAME_START, VagrantConstants.DELIMITER_HOSTNAME_END);
 
    public VagrantOutputRecorder(CommandIOListener next) {
       this.next = next;
    }
 
    @Override
-   public void onInput(String input) {
+   public synchronized void onInput(String input) {
       if (isRecording) {
          next.onInput(input);
       }
    }
 
    @Override
-   public void onOutput(String output) {
+   public synchronized void onOutput(String output) {
       if (isRecording) {
          next.onOutput(output);
          if (output != null) {
-            this.output.append(output);
+            append(output);
+         } else {
+            flushLine();
          }
       }
    }
 
-   public void record() {
+   /**
+    * @param machineName the machine being started, its name prefixes the lines of the provisioners
+    */
+   public synchronized void record(String machineName) {
+      this.machineName = machineName;
       isRecording = true;
    }
 
-   public String stopRecording() {
+   public synchronized ProvisionerOutput stopRecording() {
+      flushLine();
       isRecording = false;
-      String out = output.toString();
-      output.setLength(0);
+      ProvisionerOutput out = ProvisionerOutput.create(networks.value(), hostname.value(), tail.toString());
+      tail.setLength(0);
+      networks.reset();
+      hostname.reset();
       return out;
    }
 
+   private void append(String output) {
+      int start = 0;
+      int nlPos;
+      while ((nlPos = output.indexOf('\n', start)) != -1) {
+         line.append(output, start, nlPos + 1);
+         flushLine();
+         start = nlPos + 1;
+      }
+      line.append(output, start, output.length());
+      if (line.length() > MAX_LINE_LENGTH) {
+         // Process what we have, the rest of the line is parsed when it arrives
+         flushLine();
+         lineContinued = true;
+      }
+   }
+
+   private void flushLine() {
+      if (line.length() == 0) {
+         return;
+      }
+      String text = normalize(line.toString(), lineContinued);
+      line.setLength(0);
+      lineContinued = false;
+
+      appendTail(text);
+      networks.parse(text);
+      hostname.parse(text);
+   }
+
+   private String normalize(String line, boolean continued) {
+      int pos = 0;
+      if (!continued) {
+         // Strip "timestamp,target,type,subtype," of the machine readable format
+         for (int i = 0; i < MACHINE_READABLE_FIELDS; i++) {
+            int comma = line.indexOf(',', pos);
+            if (comma == -1) {
+               pos = 0;
+               break;
+            }
+            pos = comma + 1;
+         }
+      }
+      String text = line.substring(pos);
+      if (machineName != null) {
+         text = text.replace("==> " + machineName + ": ", "");
+      }
+      // Vagrant shows some of the \n verbatim in provisioning command results.
+      return text.replace("\\n", "\n");
+   }
+
+   private void appendTail(String text) {
+      tail.append(text);
+      if (tail.length() > MAX_TAIL_LENGTH) {
+         tail.delete(0, tail.length() - MAX_TAIL_LENGTH);
+      }
+   }
+
+   /**
+    * The text between a pair of delimiters. Only the first occurrence is kept.
+    */
+   private static class Section {
+      private final String start;
+      private final String end;
+      private final StringBuilder value = new StringBuilder();
+      private boolean started;
+      private boolean complete;
+
+      Section(String start, String end) {
+         this.start = start;
+         this.end = end;
+      }
+
+      void parse(String text) {
+         if (complete) {
+            return;
+         }
+         int from = 0;
+         if (!started) {
+            int startPos = text.indexOf(start);
+            if (startPos == -1) {
+               return;
+            }
+            started = true;
+            from = startPos + start.length();
+         }
+         int endPos = text.indexOf(end, from);
+         if (endPos != -1) {
+            append(text, from, endPos);
+            complete = true;
+         } else {
+            append(text, from, text.length());
+         }
+      }
+
+      private void append(String text, int from, int to) {
+         int length = Math.min(to - from, MAX_SECTION_LENGTH - value.length());
+         if (length > 0) {
+            value.append(text, from, from + length);
+         }
+      }
+
+      String value() {
+         return complete ? value.toString().trim() : null;
+      }
+
+      void reset() {
+         value.setLength(0);
+         started = false;
+         complete = false;
+      }
+   }
+
 }
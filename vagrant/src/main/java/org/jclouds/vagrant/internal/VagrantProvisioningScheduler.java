@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.jclouds.vagrant.reference.VagrantConstants;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Sets;
+import com.google.inject.Singleton;
+
+/**
+ * Coordinates the machines being created in parallel. The machines of a group share the group folder and its
+ * Vagrantfile, so the folder is only set up and deleted while holding the lock of the group, and the Vagrantfile is
+ * written once per group. Each group has its own lock, so machines of different groups never wait on each other's
+ * lock. The lock of a group is dropped once no thread holds or references it.
+ * <p>
+ * Machine starts run concurrently up to {@link VagrantConstants#JCLOUDS_VAGRANT_MAX_PARALLEL_STARTS}, the rest wait
+ * for a free slot. Set it to 1 for Vagrant providers that can't start machines in parallel.
+ */
+@Singleton
+public class VagrantProvisioningScheduler {
+
+   private final LoadingCache<String, Lock> groupLocks = CacheBuilder.newBuilder().weakValues()
+         .build(new CacheLoader<String, Lock>() {
+            @Override
+            public Lock load(String group) {
+               return new ReentrantLock();
+            }
+         });
+   private final Set<String> initializedGroups = Sets.newConcurrentHashSet();
+   private final Semaphore starts;
+
+   @Inject
+   VagrantProvisioningScheduler(@Named(VagrantConstants.JCLOUDS_VAGRANT_MAX_PARALLEL_STARTS) int maxParallelStarts) {
+      checkArgument(maxParallelStarts > 0, "%s must be positive", VagrantConstants.JCLOUDS_VAGRANT_MAX_PARALLEL_STARTS);
+      this.starts = new Semaphore(maxParallelStarts, true);
+   }
+
+   /**
+    * @return the lock guarding the folder of the group
+    */
+   public Lock groupLock(String group) {
+      return groupLocks.getUnchecked(group);
+   }
+
+   /**
+    * Must be called holding the group lock.
+    *
+    * @return true if the group folder still needs to be set up by this process
+    */
+   public boolean markInitialized(String group) {
+      return initializedGroups.add(group);
+   }
+
+   /**
+    * Must be called holding the group lock, once the folder of the group has been deleted.
+    */
+   public void markDeleted(String group) {
+      initializedGroups.remove(group);
+   }
+
+   /**
+    * Runs a machine start once a start slot is free
+    */
+   public <T> T start(Supplier<T> start) {
+      try {
+         starts.acquire();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      try {
+         return start.get();
+      } finally {
+         starts.release();
+      }
+   }
+
+}
@@ -23,6 +23,8 @@ public final class VagrantConstants {
 
    public static final String JCLOUDS_VAGRANT_HOME = "vagrant.home";
    public static final String JCLOUDS_VAGRANT_HOME_DEFAULT = new File(System.getProperty("user.home"), ".jclouds/vagrant").getAbsolutePath();
+   public static final String JCLOUDS_VAGRANT_MAX_PARALLEL_STARTS = "vagrant.max-parallel-starts";
+   public static final String JCLOUDS_VAGRANT_MAX_PARALLEL_STARTS_DEFAULT = "4";
    public static final String VAGRANTFILE = "Vagrantfile";
    public static final String DEFAULT_USERNAME = "vagrant";
    public static final String DEFAULT_PASSWORD = "vagrant";
@@ -53,6 +55,7 @@ public final class VagrantConstants {
    public static final String MACHINES_CONFIG_SUBFOLDER = "machines";
    public static final String MACHINES_CONFIG_EXTENSION = ".yaml";
    public static final String MACHINES_AUTO_HARDWARE = "automatic";
+   public static final String NODE_INDEX_FILE = "nodes.properties";
 
    // Config file keys
    public static final String CONFIG_JCLOUDS_VERSION = "jcloudsVersion";
@@ -24,11 +24,18 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.jclouds.util.Closeables2;
+import org.jclouds.vagrant.reference.VagrantConstants;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
 import com.google.common.io.ByteStreams;
 
 public class VagrantUtils {
+   public static File getVagrantHome() {
+      Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
+      return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
+   }
+
    public static void deleteFolder(File path) {
       if (path.isDirectory()) {
          for (File sub : path.listFiles()) {
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.easymock.EasyMock;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.util.VagrantUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+
+public class ImageSupplierTest {
+
+   private static final Function<String, Image> BOX_TO_IMAGE = new Function<String, Image>() {
+      @Override
+      public Image apply(String input) {
+         return new ImageBuilder()
+               .ids(input)
+               .name(input)
+               .operatingSystem(new OperatingSystem(OsFamily.UNRECOGNIZED, input, null, null, input, true))
+               .status(Image.Status.AVAILABLE)
+               .build();
+      }
+   };
+
+   @Test
+   public void testBoxesListedOnlyAfterChange() throws Exception {
+      File boxes = Files.createTempDir();
+      new File(boxes, "jclouds-VAGRANTSLASH-box/0/virtualbox").mkdirs();
+
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade<String> cli = EasyMock.createMock(VagrantBoxApiFacade.class);
+      EasyMock.expect(cli.listBoxes()).andReturn(ImmutableList.of("jclouds/box"));
+      EasyMock.expect(cli.listBoxes()).andReturn(ImmutableList.of("jclouds/box", "jclouds/other"));
+      @SuppressWarnings("unchecked")
+      VagrantBoxApiFacade.Factory<String> cliFactory = EasyMock.createMock(VagrantBoxApiFacade.Factory.class);
+      EasyMock.expect(cliFactory.create()).andReturn(cli).times(2);
+      EasyMock.replay(cli, cliFactory);
+
+      ImageSupplier<String> imageSupplier = new ImageSupplier<String>(
+            Functions.<Collection<String>>identity(), cliFactory, BOX_TO_IMAGE, boxes);
+
+      assertEquals(Iterables.getOnlyElement(imageSupplier.get()).getId(), "jclouds/box");
+      assertEquals(imageSupplier.apply("jclouds/box").getId(), "jclouds/box");
+      assertNull(imageSupplier.apply("jclouds/other"));
+
+      new File(boxes, "jclouds-VAGRANTSLASH-other/0/virtualbox").mkdirs();
+
+      assertEquals(imageSupplier.apply("jclouds/other").getId(), "jclouds/other");
+      assertEquals(ImmutableSet.copyOf(Iterables.transform(imageSupplier.get(), new Function<Image, String>() {
+         @Override
+         public String apply(Image input) {
+            return input.getId();
+         }
+      })), ImmutableSet.of("jclouds/box", "jclouds/other"));
+
+      EasyMock.verify(cli, cliFactory);
+      VagrantUtils.deleteFolder(boxes);
+   }
+
+}
@@ -17,6 +17,7 @@
 package org.jclouds.vagrant.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,6 +28,10 @@ import org.easymock.EasyMock;
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
 import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.vagrant.domain.VagrantNode;
 import org.jclouds.vagrant.reference.VagrantConstants;
@@ -37,6 +42,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 
@@ -81,8 +87,12 @@ public class VagrantNodeLoaderTest {
         MachineConfig.Factory factory = EasyMock.createMock(MachineConfig.Factory.class);
         EasyMock.expect(factory.newInstance(group, machineName)).andReturn(config);
 
-        Image image = EasyMock.createMock(Image.class);
-        EasyMock.expect(image.getId()).andReturn(imageId);
+        Image image = new ImageBuilder()
+                .ids(imageId)
+                .name(imageId)
+                .operatingSystem(new OperatingSystem(OsFamily.CENTOS, imageId, null, null, imageId, true))
+                .status(Image.Status.AVAILABLE)
+                .build();
 
         @SuppressWarnings("unchecked")
         Supplier<Collection<Image>> imageSupplier = EasyMock.createMock(Supplier.class);
@@ -93,9 +103,10 @@ public class VagrantNodeLoaderTest {
         EasyMock.expect(hardwareSupplier.get()).andReturn(ImmutableMap.<String, Hardware>of(
                 "small", new HardwareBuilder().ids("small").ram(1024).processor(new Processor(1.0, 1)).build()));
 
-        EasyMock.replay(config, factory, imageSupplier, image, hardwareSupplier);
+        EasyMock.replay(config, factory, imageSupplier, hardwareSupplier);
 
-        VagrantExistingMachines nodeLoader = new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier);
+        VagrantNodeIndex index = new VagrantNodeIndex(home.getAbsolutePath());
+        VagrantExistingMachines nodeLoader = new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier, index);
         Collection<VagrantNode> nodes = nodeLoader.get();
 
         VagrantNode actualNode = Iterables.getOnlyElement(nodes);
@@ -110,6 +121,71 @@ public class VagrantNodeLoaderTest {
                 .setHostname("unknown")
                 .build();
         assertEquals(actualNode, expectedNode);
+        assertTrue(index.exists());
+        VagrantUtils.deleteFolder(home);
+    }
+
+    @Test
+    public void testIndexedMachine() throws Exception {
+        File home = Files.createTempDir();
+        File group = new File(home, "groupId");
+        File machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+        machines.mkdirs();
+        Files.write("dummy", new File(machines, "machineId" + VagrantConstants.MACHINES_CONFIG_EXTENSION), Charsets.UTF_8);
+
+        OperatingSystem os = new OperatingSystem(OsFamily.UBUNTU, "ubuntu/xenial64", "20180509.0.0", null, "ubuntu/xenial64", true);
+        Image image = new ImageBuilder()
+                .ids("ubuntu/xenial64")
+                .name("ubuntu/xenial64")
+                .version("20180509.0.0")
+                .operatingSystem(os)
+                .status(Image.Status.AVAILABLE)
+                .userMetadata(ImmutableMap.of(VagrantConstants.USER_META_PROVIDER, "virtualbox"))
+                .build();
+        Hardware hardware = new HardwareBuilder().ids("small").ram(1024).processor(new Processor(1.0, 1)).build();
+        VagrantNode node = VagrantNode.builder()
+                .setPath(group)
+                .setId("groupId/machineId")
+                .setGroup("groupId")
+                .setName("machineId")
+                .setImage(image)
+                .setHardware(hardware)
+                .setNetworks(ImmutableList.of("10.0.2.15", "172.28.128.3"))
+                .setHostname("machine-host")
+                .build();
+        node.setMachineState(Status.RUNNING);
+        VagrantNode deletedNode = VagrantNode.builder()
+                .setPath(group)
+                .setId("groupId/deletedId")
+                .setGroup("groupId")
+                .setName("deletedId")
+                .setImage(image)
+                .setHardware(hardware)
+                .setNetworks(ImmutableList.<String>of())
+                .setHostname("deleted-host")
+                .build();
+        new VagrantNodeIndex(home.getAbsolutePath()).put(node);
+        new VagrantNodeIndex(home.getAbsolutePath()).put(deletedNode);
+
+        // Neither the machine configs nor the boxes are read when the index exists
+        MachineConfig.Factory factory = EasyMock.createMock(MachineConfig.Factory.class);
+        @SuppressWarnings("unchecked")
+        Supplier<Collection<Image>> imageSupplier = EasyMock.createMock(Supplier.class);
+        @SuppressWarnings("unchecked")
+        Supplier<Map<String, Hardware>> hardwareSupplier = EasyMock.createMock(Supplier.class);
+        EasyMock.expect(hardwareSupplier.get()).andReturn(ImmutableMap.of("small", hardware));
+        EasyMock.replay(factory, imageSupplier, hardwareSupplier);
+
+        VagrantNodeIndex index = new VagrantNodeIndex(home.getAbsolutePath());
+        VagrantExistingMachines nodeLoader = new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier, index);
+        VagrantNode actualNode = Iterables.getOnlyElement(nodeLoader.get());
+
+        assertEquals(actualNode, node);
+        assertEquals(actualNode.machineState(), Status.RUNNING);
+        assertEquals(actualNode.image().getOperatingSystem().getFamily(), OsFamily.UBUNTU);
+        assertEquals(actualNode.image().getUserMetadata().get(VagrantConstants.USER_META_PROVIDER), "virtualbox");
+        assertEquals(index.load().keySet(), ImmutableSet.of(node.id()));
+        EasyMock.verify(factory, imageSupplier, hardwareSupplier);
         VagrantUtils.deleteFolder(home);
     }
 
@@ -17,22 +17,33 @@
 package org.jclouds.vagrant.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.easymock.EasyMock;
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.util.VagrantUtils;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 
 public class VagrantNodeRegistryTest {
 
@@ -42,7 +53,9 @@ public class VagrantNodeRegistryTest {
       EasyMock.expect(loader.get()).andReturn(ImmutableList.<VagrantNode>of());
       EasyMock.replay(loader);
 
-      VagrantNodeRegistry registry = new VagrantNodeRegistry(loader);
+      File home = Files.createTempDir();
+      VagrantNodeIndex index = new VagrantNodeIndex(home.getAbsolutePath());
+      VagrantNodeRegistry registry = new VagrantNodeRegistry(loader, index);
       OperatingSystem os = new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64", "Jclouds Test Image", true);
       Image image = new ImageBuilder()
             .ids("jclouds/box")
@@ -66,7 +79,66 @@ public class VagrantNodeRegistryTest {
       assertNull(registry.get(node.id()));
       registry.add(node);
       assertEquals(registry.get(node.id()), node);
+      assertEquals(index.load().get(node.id()).get(VagrantNodeIndex.FIELD_HOSTNAME), "vagrant-node");
+      registry.setMachineState(node, Status.SUSPENDED);
+      assertEquals(node.machineState(), Status.SUSPENDED);
+      assertEquals(index.load().get(node.id()).get(VagrantNodeIndex.FIELD_STATE), Status.SUSPENDED.name());
       registry.onTerminated(node);
       assertNull(registry.get(node.id()));
+      assertFalse(index.load().containsKey(node.id()));
+      VagrantUtils.deleteFolder(home);
+   }
+
+   @Test
+   public void testGetSettledWaitsForNodesInFlight() throws Exception {
+      VagrantExistingMachines loader = EasyMock.createMock(VagrantExistingMachines.class);
+      EasyMock.expect(loader.get()).andReturn(ImmutableList.<VagrantNode>of());
+      EasyMock.replay(loader);
+
+      File home = Files.createTempDir();
+      final VagrantNodeRegistry registry = new VagrantNodeRegistry(loader, new VagrantNodeIndex(home.getAbsolutePath()));
+      Image image = new ImageBuilder()
+            .ids("jclouds/box")
+            .operatingSystem(new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64", "Jclouds Test Image", true))
+            .status(Image.Status.AVAILABLE)
+            .build();
+      VagrantNode node = VagrantNode.builder()
+            .setPath(new File(home, "vagrant"))
+            .setId("vagrant/node")
+            .setGroup("vagrant")
+            .setName("node")
+            .setImage(image)
+            .setNetworks(ImmutableList.<String>of())
+            .setHardware(new HardwareBuilder().ids("mini").ram(100).processor(new Processor(1.0, 1)).build())
+            .setHostname("vagrant-node")
+            .build();
+
+      // Nodes which are not in flight are returned immediately
+      assertNull(registry.getSettled(node.id()));
+
+      registry.markInFlight(node.id());
+      registry.markInFlight(node.id());
+      final CountDownLatch waiting = new CountDownLatch(1);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<VagrantNode> settled = executor.submit(new Callable<VagrantNode>() {
+            @Override
+            public VagrantNode call() {
+               waiting.countDown();
+               return registry.getSettled("vagrant/node");
+            }
+         });
+         assertTrue(waiting.await(10, TimeUnit.SECONDS));
+
+         // The node is only registered after the nested update settled, a lookup returning earlier gets null
+         registry.markSettled(node.id());
+         registry.add(node);
+         registry.markSettled(node.id());
+         assertEquals(settled.get(10, TimeUnit.SECONDS), node);
+         assertEquals(registry.getSettled(node.id()), node);
+      } finally {
+         executor.shutdownNow();
+         VagrantUtils.deleteFolder(home);
+      }
    }
 }
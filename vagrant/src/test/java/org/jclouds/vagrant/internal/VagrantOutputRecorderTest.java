@@ -17,9 +17,15 @@
 package org.jclouds.vagrant.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
+import org.jclouds.vagrant.domain.ProvisionerOutput;
+import org.jclouds.vagrant.reference.VagrantConstants;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Strings;
+
 import vagrant.api.CommandIOListener;
 
 public class VagrantOutputRecorderTest {
@@ -42,17 +48,59 @@ public class VagrantOutputRecorderTest {
    @Test
    public void testOutputRecorder() {
       VagrantOutputRecorder outputRecorder = new VagrantOutputRecorder(nopIOListener);
-      outputRecorder.record();
-      assertEquals(outputRecorder.stopRecording(), "");
-      outputRecorder.record();
+      outputRecorder.record("f99");
+      assertEquals(outputRecorder.stopRecording().tail(), "");
+      outputRecorder.record("f99");
       outputRecorder.onInput("vagrant up");
-      assertEquals(outputRecorder.stopRecording(), "");
-      outputRecorder.record();
+      assertEquals(outputRecorder.stopRecording().tail(), "");
+      outputRecorder.record("f99");
       outputRecorder.onOutput(OUT1);
       outputRecorder.onOutput(OUT2);
       outputRecorder.onOutput(OUT3 + OUT4);
-      assertEquals(outputRecorder.stopRecording(), OUT1 + OUT2 + OUT3 + OUT4);
+      ProvisionerOutput output = outputRecorder.stopRecording();
+      assertEquals(output.tail(), "virtualbox\nBringing machine 'f99' up with 'virtualbox' provider...\nsta");
+      assertNull(output.networks());
+      assertNull(output.hostname());
+      outputRecorder.onOutput(OUT1);
+      assertEquals(outputRecorder.stopRecording().tail(), "");
+   }
+
+   @Test
+   public void testProvisionerSections() {
+      String provisioner = "1482768920,f99,ui,info,==> f99: "
+            + VagrantConstants.DELIMITER_NETWORKS_START + "\\n"
+            + "1: lo    inet 127.0.0.1/8 scope host lo\\n"
+            + "2: eth0    inet 10.0.2.15/24 brd 10.0.2.255 scope global eth0\\n"
+            + VagrantConstants.DELIMITER_NETWORKS_END + "\\n"
+            + VagrantConstants.DELIMITER_HOSTNAME_START + "\\n"
+            + "f99-host\\n"
+            + VagrantConstants.DELIMITER_HOSTNAME_END + "\n";
+
+      VagrantOutputRecorder outputRecorder = new VagrantOutputRecorder(nopIOListener);
+      outputRecorder.record("f99");
       outputRecorder.onOutput(OUT1);
-      assertEquals(outputRecorder.stopRecording(), "");
+      // Split the line at arbitrary points, including inside of the delimiters
+      outputRecorder.onOutput(provisioner.substring(0, 40));
+      outputRecorder.onOutput(provisioner.substring(40, 200));
+      outputRecorder.onOutput(provisioner.substring(200));
+      ProvisionerOutput output = outputRecorder.stopRecording();
+
+      assertEquals(output.networks(), "1: lo    inet 127.0.0.1/8 scope host lo\n"
+            + "2: eth0    inet 10.0.2.15/24 brd 10.0.2.255 scope global eth0");
+      assertEquals(output.hostname(), "f99-host");
+   }
+
+   @Test
+   public void testBoundedBuffers() {
+      VagrantOutputRecorder outputRecorder = new VagrantOutputRecorder(nopIOListener);
+      outputRecorder.record("f99");
+      String line = "1482768916,f99,ui,info," + Strings.repeat("x", 100) + "\n";
+      for (int i = 0; i < 10000; i++) {
+         outputRecorder.onOutput(line);
+      }
+      outputRecorder.onOutput(Strings.repeat("y", VagrantOutputRecorder.MAX_LINE_LENGTH * 2));
+      ProvisionerOutput output = outputRecorder.stopRecording();
+      assertEquals(output.tail().length(), VagrantOutputRecorder.MAX_TAIL_LENGTH);
+      assertTrue(output.tail().endsWith("yyy"));
    }
 }
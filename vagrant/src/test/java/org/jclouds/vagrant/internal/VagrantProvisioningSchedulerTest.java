@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+public class VagrantProvisioningSchedulerTest {
+
+   @Test
+   public void testGroupInitialization() {
+      VagrantProvisioningScheduler scheduler = new VagrantProvisioningScheduler(1);
+      assertSame(scheduler.groupLock("group"), scheduler.groupLock("group"));
+      assertNotSame(scheduler.groupLock("group"), scheduler.groupLock("other"));
+      assertTrue(scheduler.markInitialized("group"));
+      assertFalse(scheduler.markInitialized("group"));
+      assertTrue(scheduler.markInitialized("other"));
+      scheduler.markDeleted("group");
+      assertTrue(scheduler.markInitialized("group"));
+   }
+
+   @Test
+   public void testGroupsDoNotShareLocks() throws Exception {
+      final VagrantProvisioningScheduler scheduler = new VagrantProvisioningScheduler(1);
+      Lock lock = scheduler.groupLock("group");
+      lock.lock();
+      try {
+         ExecutorService executor = Executors.newSingleThreadExecutor();
+         try {
+            for (int i = 0; i < 1000; i++) {
+               final String group = "other-" + i;
+               assertTrue(executor.submit(new Callable<Boolean>() {
+                  @Override
+                  public Boolean call() {
+                     Lock other = scheduler.groupLock(group);
+                     if (!other.tryLock()) {
+                        return false;
+                     }
+                     other.unlock();
+                     return true;
+                  }
+               }).get(), group + " should not share the lock of group");
+            }
+         } finally {
+            executor.shutdownNow();
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Test
+   public void testStartsAreBounded() throws Exception {
+      final VagrantProvisioningScheduler scheduler = new VagrantProvisioningScheduler(2);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final CountDownLatch release = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(5);
+      try {
+         List<Future<String>> starts = Lists.newArrayList();
+         for (int i = 0; i < 5; i++) {
+            final String machine = "machine-" + i;
+            starts.add(executor.submit(new Callable<String>() {
+               @Override
+               public String call() {
+                  return scheduler.start(new Supplier<String>() {
+                     @Override
+                     public String get() {
+                        int current = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                           maxRunning.set(Math.max(maxRunning.get(), current));
+                        }
+                        Uninterruptibles.awaitUninterruptibly(release, 100, TimeUnit.MILLISECONDS);
+                        running.decrementAndGet();
+                        return machine;
+                     }
+                  });
+               }
+            }));
+         }
+         for (int i = 0; i < starts.size(); i++) {
+            assertEquals(starts.get(i).get(), "machine-" + i);
+         }
+         assertTrue(maxRunning.get() <= 2, "at most 2 starts should run at a time");
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+}